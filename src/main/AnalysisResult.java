@@ -0,0 +1,174 @@
+package main;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+
+public class AnalysisResult {
+    private final PixelNodeGraph graph;
+    private final BasicCharacterPattern.GraphDataSet graphDataSet;
+    private final List<CharacterCertainty> characterCertainties = new ArrayList<>();
+    private Map<Image, String> images;
+    private BufferedImage segmentsImage;
+
+    AnalysisResult(PixelNodeGraph graph) {
+        this.graph = graph;
+        graphDataSet = new BasicCharacterPattern.GraphDataSet(this.graph);
+    }
+
+    public PixelNodeGraph getGraph() {
+        return graph;
+    }
+
+    BasicCharacterPattern.GraphDataSet getGraphDataSet() {
+        return graphDataSet;
+    }
+
+    public CharacterCertainty getHighestCharacterCertainty() {
+        double maxCertainty = Double.NEGATIVE_INFINITY;
+        CharacterCertainty maxCharacter = null;
+        for (CharacterCertainty c : getCharacterCertainties(null)) {
+            double certainty = c.getCertainty();
+            if (certainty > maxCertainty) {
+                maxCharacter = c;
+                maxCertainty = certainty;
+            }
+        }
+        return maxCharacter;
+    }
+
+    public CharacterCertainty[] getCharacterCertainties() {
+        return getCharacterCertainties(CharacterCertainty::compareTo);
+    }
+
+    public CharacterCertainty[] getCharacterCertainties(Comparator<CharacterCertainty> comparator) {
+        CharacterCertainty[] certainties = characterCertainties.toArray(new CharacterCertainty[characterCertainties.size()]);
+        if (comparator != null) {
+            Arrays.sort(certainties, comparator);
+        }
+        return certainties;
+    }
+
+    /**
+     * Gets the intermediate images rendered during the analysis, keyed by image and mapped to a display name.<br>
+     * The map is empty unless the analysis was requested to keep the process images.
+     * @return the process images of the analysis
+     */
+    public Map<Image, String> getImages() {
+        return images != null ? Collections.unmodifiableMap(images) : Collections.emptyMap();
+    }
+
+    /**
+     * Gets the rendering of the segments the characters were recognized from.
+     * @return the segments image, or {@code null} unless the analysis was requested to keep the process images
+     */
+    public BufferedImage getSegmentsImage() {
+        return segmentsImage;
+    }
+
+    void addCharacterCertainty(CharacterPattern p) {
+        characterCertainties.add(new CharacterCertainty(p, p.getCertainty(graph)));
+    }
+
+    void addCharacterCertainty(BasicCharacterPattern p) {
+        characterCertainties.add(new CharacterCertainty(p, p.getCertaintyFactors(graphDataSet)));
+    }
+
+    void addImage(Image image, String name) {
+        if (images == null) {
+            images = new IdentityHashMap<>();
+        }
+        images.put(image, name);
+    }
+
+    void setSegmentsImage(BufferedImage segmentsImage) {
+        this.segmentsImage = segmentsImage;
+    }
+
+    public String getStandardMessage() {
+        CharacterCertainty[] certainties = getCharacterCertainties();
+        CharacterCertainty highestConfidence = certainties.length >= 1 ? certainties[0] : null;
+        StringBuilder message = new StringBuilder();
+        if (highestConfidence != null) {
+            if (highestConfidence.getCertainty() > 0.9) {
+                message.append("Obviously that's ");
+            } else if (highestConfidence.getCertainty() > 0.7) {
+                message.append("That's ");
+            } else if (highestConfidence.getCertainty() > 0.5) {
+                message.append("Probably ");
+            } else if (highestConfidence.getCertainty() > 0.2) {
+                message.append("Guessing that's ");
+            } else {
+                message.append("Not too sure. Maybe that's ");
+            }
+            message.append(highestConfidence.toString()).append(' ').append(String.format("(%f%%)", highestConfidence.getCertainty() * 100.0));
+            CharacterCertainty secondHighestConfidence = certainties.length >= 2 ? certainties[1] : null;
+            if (secondHighestConfidence != null) {
+                boolean hasSecondMessage = true;
+                if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.95) {
+                    message.append(" or ").append(secondHighestConfidence.toString());
+                } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.85) {
+                    message.append(" or maybe a ").append(secondHighestConfidence.toString());
+                } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.6) {
+                    message.append(" but also could be a ").append(secondHighestConfidence.toString());
+                } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.35) {
+                    message.append(" with a bit of ").append(secondHighestConfidence.toString()).append(" detected");
+                } else {
+                    hasSecondMessage = false;
+                }
+                if (hasSecondMessage) {
+                    message.append(' ').append(String.format("(%f%%)", secondHighestConfidence.getCertainty() * 100.0));
+                }
+            }
+        }
+        return message.toString();
+    }
+
+    public static class CharacterCertainty implements Comparable<CharacterCertainty> {
+        private final CharacterPattern pattern;
+        private final double certainty;
+        private final BasicCharacterPattern.CertaintyFactor[] factors;
+        CharacterCertainty(CharacterPattern pattern, double certainty) {
+            this(pattern, new BasicCharacterPattern.CertaintyFactor("Certainty", certainty, certainty));
+        }
+        CharacterCertainty(CharacterPattern pattern, BasicCharacterPattern.CertaintyFactor... factors) {
+            if (factors == null || factors.length == 0) throw new IllegalArgumentException("No factors specified");
+            this.pattern = pattern;
+            this.factors = Arrays.copyOf(factors, factors.length);
+            this.certainty = BasicCharacterPattern.getCertainty(this.factors);
+        }
+        public CharacterPattern getPattern() {
+            return pattern;
+        }
+        public double getCertainty() {
+            return certainty;
+        }
+        BasicCharacterPattern.CertaintyFactor[] getFactors() {
+            return factors;
+        }
+        @Override
+        public int compareTo(CharacterCertainty o) {
+            return compareToWithNaN(o.certainty, certainty);
+        }
+        @Override
+        public String toString() {
+            return pattern.toString();
+        }
+
+        public static int compareToWithNaN(double d1, double d2) {
+            boolean n1 = Double.isNaN(d1);
+            boolean n2 = Double.isNaN(d2);
+            if (n1 && n2) {
+                return 0;
+            } else if (n1) {
+                return -1;
+            } else if (n2) {
+                return 1;
+            } else {
+                return Double.compare(d1, d2);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package main;
+
+import java.awt.image.*;
+
+/**
+ * Image stored as packed {@code 0xAARRGGBB} ints in a single row-major array.<br>
+ * Images of {@link BufferedImage#TYPE_INT_ARGB} are wrapped without copying, so writes go through to the source image.
+ */
+public class ArgbImage {
+    private static final int[] ARGB_MASKS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private BufferedImage view;
+
+    public ArgbImage(int width, int height) {
+        this(width, height, new int[checkSize(width, height)]);
+    }
+
+    ArgbImage(int width, int height, int[] pixels) {
+        checkSize(width, height);
+        if (pixels.length < width * height) throw new IllegalArgumentException("pixels.length(" + pixels.length + ") must be at least " + width * height);
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    private static int checkSize(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("width(" + width + ") and height(" + height + ") must not be negative");
+        return width * height;
+    }
+
+    public static ArgbImage of(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            WritableRaster raster = image.getRaster();
+            if (raster.getParent() == null && raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+                DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+                SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                if (buffer.getNumBanks() == 1 && buffer.getOffset() == 0 && sampleModel.getScanlineStride() == width) {
+                    ArgbImage argbImage = new ArgbImage(width, height, buffer.getData());
+                    argbImage.view = image;
+                    return argbImage;
+                }
+            }
+        }
+        return new ArgbImage(width, height, image.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the backing array, indexed by {@code y * width + x}
+     */
+    int[] getPixels() {
+        return pixels;
+    }
+
+    public int getRGB(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public void setRGB(int x, int y, int rgb) {
+        pixels[y * width + x] = rgb;
+    }
+
+    public ArgbImage copy() {
+        int[] copy = new int[width * height];
+        System.arraycopy(pixels, 0, copy, 0, copy.length);
+        return new ArgbImage(width, height, copy);
+    }
+
+    /**
+     * Gets a {@link BufferedImage#TYPE_INT_ARGB} image sharing the pixels of this image.
+     * @return the image view of the pixels
+     */
+    public BufferedImage toBufferedImage() {
+        if (view == null) {
+            DataBufferInt buffer = new DataBufferInt(pixels, width * height);
+            WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, ARGB_MASKS, null);
+            view = new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+        }
+        return view;
+    }
+}
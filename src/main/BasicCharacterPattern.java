@@ -8,6 +8,7 @@ import maths.ScoreNormalizer;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public abstract class BasicCharacterPattern implements CharacterPattern {
@@ -51,123 +52,127 @@ public abstract class BasicCharacterPattern implements CharacterPattern {
         }
     }
 
+    /**
+     * Features of a graph shared by the character patterns tested against it. Each feature is computed the first time it
+     * is requested and kept for the later requests, so the graph must not be changed once the data set is in use.
+     */
     protected static class GraphDataSet {
         private final PixelNodeGraph graph;
-        private final Set<PixelNodeGraph.PixelNode> intersectionNodes;
-        private final Set<PixelNodeGraph.OpenSegment> segments;
-        private final double totalSegmentsDistance;
-        private final Set<Set<PixelNodeGraph.OpenSegment>> loops;
-        private final Map<Set<PixelNodeGraph.OpenSegment>, Double> loopsDistance;
-        private final double maxCurve;
-        private final PixelNodeGraph.OpenSegment longestSegment;
-        private final PolynomialRegression[] longestSegmentRegressions;
-        private final RationalPolynomial longestSegmentRegressionsDerivative;
-        private final RationalPolynomial longestSegmentRegressions2ndDerivative;
-        private final int longestSegmentRegressionSignChanges;
-        private final DoubleFunction longestSegmentCurvature;
-        private final int[] longestSegmentCurvaturePeaksAndTroughs;
-        private final Double longestSegmentStartAngle;
-        private final Double longestSegmentEndAngle;
+        private final Map<String, Object> features = new HashMap<>();
 
         GraphDataSet(PixelNodeGraph graph) {
             this.graph = graph;
-            intersectionNodes = graph.getVertices(3, Integer.MAX_VALUE);
-            this.segments = graph.getOpenSegments();
-            totalSegmentsDistance = segments.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum();
-            double minX = Double.POSITIVE_INFINITY;
-            double maxX = Double.NEGATIVE_INFINITY;
-            double minY = Double.POSITIVE_INFINITY;
-            double maxY = Double.NEGATIVE_INFINITY;
-            for (PixelNodeGraph.PixelNode n : getGraph().getNodes()) {
-                double x = n.getLocationX();
-                double y = n.getLocationY();
-                minX = Math.min(minX, x);
-                maxX = Math.max(maxX, x);
-                minY = Math.min(minY, y);
-                maxY = Math.max(maxY, y);
-            }
-            double width = maxX - minX;
-            double height = maxY - minY;
-            this.loops = graph.getLoop(20, segments).stream()
-                    .filter(s -> s.stream().mapToInt(PixelNodeGraph.OpenSegment::getNodeLength).sum() > Math.min(width * height * 0.0002, 5))
-                    .collect(Collectors.toSet());
-            loopsDistance = new IdentityHashMap<>();
-            for (Set<PixelNodeGraph.OpenSegment> loop : this.loops) {
-                loopsDistance.put(loop, loop.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum());
-            }
-            double maxCurve = 0;
-            for (PixelNodeGraph.OpenSegment s : segments) {
-                double value = s.getCurvature3Mod();
-                if (!Double.isNaN(value)) {
-                    maxCurve = Math.max(maxCurve, value);
-                }
-            }
-            this.maxCurve = maxCurve;
+        }
 
-            longestSegment = getSegments().stream()
-                    .max((s1, s2) -> Double.compare(s1.getDistance(), s2.getDistance()))
-                    .orElse(null);
-            if (longestSegment != null) {
-                longestSegmentRegressions = longestSegment.getRegressionCurves(4);
-                double length = longestSegment.getDistance();
-                longestSegmentRegressionsDerivative = PixelNodeGraph.OpenSegment.getRegressionCurvesDerivative(
-                        longestSegmentRegressions[0].getPolynomial(), longestSegmentRegressions[1].getPolynomial());
-                longestSegmentRegressions2ndDerivative = longestSegmentRegressionsDerivative.differentiate();
-                longestSegmentRegressionSignChanges = longestSegmentRegressions2ndDerivative
-                        .getSignChangesPoints(length * 0.01, length * 0.99).size();
-                longestSegmentCurvature = PixelNodeGraph.OpenSegment.getCurvatureFunction(
-                        longestSegmentRegressions[0].getPolynomial(), longestSegmentRegressions[1].getPolynomial());
-                longestSegmentCurvaturePeaksAndTroughs = DoubleFunction.getPeaksAndTroughsCount(
-                        longestSegmentCurvature, longestSegment
-                                .getDistance() * 0.1, longestSegment.getDistance() * 0.9, (int) Math.ceil(longestSegment.getDistance()) * 2);
-                double startT = length * 0.05;
-                double endT = length * 0.95;
-                longestSegmentStartAngle = Math.atan2(longestSegmentRegressionsDerivative.getNumerator().evaluate(startT), longestSegmentRegressionsDerivative
-                        .getDenominator().evaluate(startT));
-                longestSegmentEndAngle = Math.atan2(longestSegmentRegressionsDerivative.getNumerator().evaluate(endT), longestSegmentRegressionsDerivative
-                        .getDenominator().evaluate(endT));
-            } else {
-                longestSegmentRegressions = null;
-                longestSegmentRegressionsDerivative = null;
-                longestSegmentRegressions2ndDerivative = null;
-                longestSegmentRegressionSignChanges = -1;
-                longestSegmentCurvature = null;
-                longestSegmentCurvaturePeaksAndTroughs = null;
-                longestSegmentStartAngle = null;
-                longestSegmentEndAngle = null;
+        /**
+         * Gets a feature, computing it only if it was not requested before.
+         * @param key the name of the feature followed by its parameters
+         * @param feature computes the feature, it may request other features
+         * @return the feature, shared between the callers
+         */
+        @SuppressWarnings("unchecked")
+        private <T> T getFeature(String key, Supplier<T> feature) {
+            // Not computeIfAbsent, features are computed from other features which would modify the map while computing
+            if (features.containsKey(key)) {
+                return (T) features.get(key);
             }
+            T value = feature.get();
+            features.put(key, value);
+            return value;
         }
+
         public PixelNodeGraph getGraph() {
             return graph;
         }
 
         public Set<PixelNodeGraph.PixelNode> getIntersectionNodes() {
-            return intersectionNodes;
+            return getFeature("intersectionNodes", () -> graph.getVertices(3, Integer.MAX_VALUE));
         }
 
         public Set<PixelNodeGraph.OpenSegment> getSegments() {
-            return segments;
+            return getFeature("segments", graph::getOpenSegments);
         }
 
         public double getTotalSegmentsDistance() {
-            return totalSegmentsDistance;
+            return getFeature("totalSegmentsDistance", () -> getSegments().stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum());
+        }
+
+        /**
+         * @return the minimum and maximum x and y-coordinates of the nodes of the graph, in that order
+         */
+        private double[] getBounds() {
+            return getFeature("bounds", () -> {
+                double minX = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (PixelNodeGraph.PixelNode n : getGraph().getNodes()) {
+                    double x = n.getLocationX();
+                    double y = n.getLocationY();
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+                return new double[] {minX, maxX, minY, maxY};
+            });
+        }
+
+        double getWidth() {
+            double[] bounds = getBounds();
+            return bounds[1] - bounds[0];
+        }
+
+        double getHeight() {
+            double[] bounds = getBounds();
+            return bounds[3] - bounds[2];
         }
 
         public Set<Set<PixelNodeGraph.OpenSegment>> getLoops() {
-            return loops;
+            return getFeature("loops", () -> {
+                double width = getWidth();
+                double height = getHeight();
+                return graph.getLoop(20, getSegments()).stream()
+                        .filter(s -> s.stream().mapToInt(PixelNodeGraph.OpenSegment::getNodeLength).sum() > Math.min(width * height * 0.0002, 5))
+                        .collect(Collectors.toSet());
+            });
         }
 
         Map<Set<PixelNodeGraph.OpenSegment>, Double> getLoopsDistance() {
-            return loopsDistance;
+            return getFeature("loopsDistance", () -> {
+                Map<Set<PixelNodeGraph.OpenSegment>, Double> loopsDistance = new IdentityHashMap<>();
+                for (Set<PixelNodeGraph.OpenSegment> loop : getLoops()) {
+                    loopsDistance.put(loop, loop.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum());
+                }
+                return loopsDistance;
+            });
         }
 
         public double getMaxCurve() {
-            return maxCurve;
+            return getFeature("maxCurve", () -> {
+                double maxCurve = 0;
+                for (PixelNodeGraph.OpenSegment s : getSegments()) {
+                    double value = s.getCurvature3Mod();
+                    if (!Double.isNaN(value)) {
+                        maxCurve = Math.max(maxCurve, value);
+                    }
+                }
+                return maxCurve;
+            });
+        }
+
+        /**
+         * @param direction an angle in radians starting at 0 from the positive x-axis and moving towards the positive y-axis
+         * @return the skewness of all the nodes of the graph in the direction
+         * @see PixelNodeGraph.OpenSegment#getSkewness(Collection, double)
+         */
+        double getSkewness(double direction) {
+            return getFeature("skewness " + direction, () -> PixelNodeGraph.OpenSegment.getSkewness(getGraph().getNodes(), direction));
         }
 
         double getSegmentMax(Function<PixelNodeGraph.OpenSegment, Double> function) {
             double max = Double.NEGATIVE_INFINITY;
-            for (PixelNodeGraph.OpenSegment s : this.segments) {
+            for (PixelNodeGraph.OpenSegment s : getSegments()) {
                 Double value = function.apply(s);
                 if (value != null && value > max) {
                     max = value;
@@ -177,37 +182,84 @@ public abstract class BasicCharacterPattern implements CharacterPattern {
         }
 
         PixelNodeGraph.OpenSegment getLongestSegment() {
-            return longestSegment;
+            return getFeature("longestSegment", () -> getSegments().stream()
+                    .max((s1, s2) -> Double.compare(s1.getDistance(), s2.getDistance()))
+                    .orElse(null));
         }
 
         PolynomialRegression[] getLongestSegmentRegressions() {
-            return longestSegmentRegressions;
+            return getFeature("longestSegmentRegressions", () -> {
+                PixelNodeGraph.OpenSegment longestSegment = getLongestSegment();
+                return longestSegment != null ? longestSegment.getRegressionCurves(4) : null;
+            });
+        }
+
+        private RationalPolynomial getLongestSegmentRegressionsDerivative() {
+            return getFeature("longestSegmentRegressionsDerivative", () -> {
+                PolynomialRegression[] regressions = getLongestSegmentRegressions();
+                return regressions != null ? PixelNodeGraph.OpenSegment.getRegressionCurvesDerivative(
+                        regressions[0].getPolynomial(), regressions[1].getPolynomial()) : null;
+            });
+        }
+
+        private RationalPolynomial getLongestSegmentRegressions2ndDerivative() {
+            return getFeature("longestSegmentRegressions2ndDerivative", () -> {
+                RationalPolynomial derivative = getLongestSegmentRegressionsDerivative();
+                return derivative != null ? derivative.differentiate() : null;
+            });
         }
 
         int getLongestSegmentRegressionSignChanges() {
-            return longestSegmentRegressionSignChanges;
+            return getFeature("longestSegmentRegressionSignChanges", () -> {
+                RationalPolynomial derivative2 = getLongestSegmentRegressions2ndDerivative();
+                if (derivative2 == null) {
+                    return -1;
+                }
+                double length = getLongestSegment().getDistance();
+                return derivative2.getSignChangesPoints(length * 0.01, length * 0.99).size();
+            });
         }
 
         DoubleFunction getLongestSegmentCurvature() {
-            return longestSegmentCurvature;
+            return getFeature("longestSegmentCurvature", () -> {
+                PolynomialRegression[] regressions = getLongestSegmentRegressions();
+                return regressions != null ? PixelNodeGraph.OpenSegment.getCurvatureFunction(
+                        regressions[0].getPolynomial(), regressions[1].getPolynomial()) : null;
+            });
         }
 
         int[] getLongestSegmentCurvaturePeaksAndTroughs() {
-            return longestSegmentCurvaturePeaksAndTroughs;
+            return getFeature("longestSegmentCurvaturePeaksAndTroughs", () -> {
+                DoubleFunction curvature = getLongestSegmentCurvature();
+                if (curvature == null) {
+                    return null;
+                }
+                double length = getLongestSegment().getDistance();
+                return DoubleFunction.getPeaksAndTroughsCount(curvature, length * 0.1, length * 0.9, (int) Math.ceil(length) * 2);
+            });
         }
 
         Double getLongestSegmentStartAngle() {
-            return longestSegmentStartAngle;
+            return getFeature("longestSegmentStartAngle", () -> getLongestSegmentAngle(0.05));
         }
 
         Double getLongestSegmentEndAngle() {
-            return longestSegmentEndAngle;
+            return getFeature("longestSegmentEndAngle", () -> getLongestSegmentAngle(0.95));
+        }
+
+        private Double getLongestSegmentAngle(double position) {
+            RationalPolynomial derivative = getLongestSegmentRegressionsDerivative();
+            if (derivative == null) {
+                return null;
+            }
+            double t = getLongestSegment().getDistance() * position;
+            return Math.atan2(derivative.getNumerator().evaluate(t), derivative.getDenominator().evaluate(t));
         }
 
         double[] curvePositiveToNegative() {
-            RationalPolynomial curve2 = longestSegmentRegressions2ndDerivative;
+            RationalPolynomial curve2 = getLongestSegmentRegressions2ndDerivative();
             if (curve2 != null) {
-                double curveLength = longestSegment.getDistance();
+                double curveLength = getLongestSegment().getDistance();
                 List<Double> points = curve2.getSignChangesPoints(0, curveLength);
                 points.add(0, 0.0);
                 int positiveInFirstHalf = 0;
@@ -253,9 +305,9 @@ public abstract class BasicCharacterPattern implements CharacterPattern {
         }
 
         double[] curvePositiveToNegative2() {
-            DoubleFunction curve = longestSegmentCurvature;
+            DoubleFunction curve = getLongestSegmentCurvature();
             if (curve != null) {
-                double curveLength = longestSegment.getDistance();
+                double curveLength = getLongestSegment().getDistance();
                 double[] extrema = DoubleFunction.getLocalExtremaApproximation(curve, 0, curveLength, (int) Math.ceil(curveLength) * 2);
                 int positiveInFirstHalf = 0;
                 int totalInFirstHalf = 0;
@@ -299,24 +351,32 @@ public abstract class BasicCharacterPattern implements CharacterPattern {
             return null;
         }
 
+        /**
+         * @return a new list of the factors shared by the S-shaped characters, which the caller may add its own factors to
+         */
         List<CertaintyFactor> sShapeCertainty() {
-            int loopsCount = this.loops.size();
+            return new ArrayList<>(getFeature("sShapeCertainty", this::computeSShapeCertainty));
+        }
+
+        private List<CertaintyFactor> computeSShapeCertainty() {
+            int loopsCount = getLoops().size();
             double loopsFactor = ScoreNormalizer.normalize(loopsCount, 0, 1.0, 0.95, 0.38, 0, 1.0);
             if (loopsCount > 0) {
-                double largestLoopSize = this.loopsDistance.values().stream().max(Double::compare).orElse(0.0);
-                loopsFactor *= 1.0 - Math.pow(largestLoopSize / this.totalSegmentsDistance, 1.5);
+                double largestLoopSize = getLoopsDistance().values().stream().max(Double::compare).orElse(0.0);
+                loopsFactor *= 1.0 - Math.pow(largestLoopSize / getTotalSegmentsDistance(), 1.5);
             }
-            double turns = longestSegmentRegressionSignChanges;
+            double turns = getLongestSegmentRegressionSignChanges();
             double turnsFactor = ScoreNormalizer.normalize(turns, 1.0, 2.5, 0.7, 0.4, 0, 1.0);
-            double maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(getGraph().getNodes(), Math.PI / 2.0);
+            double maxSkew90 = getSkewness(Math.PI / 2.0);
             double skew90Factor = ScoreNormalizer.normalize(maxSkew90, 0.25, 1.0, 0.6, 0.35, 0, 1.0);
-            double maxSkew0 = PixelNodeGraph.OpenSegment.getSkewness(getGraph().getNodes(), 0);
+            double maxSkew0 = getSkewness(0);
             double skew0Factor = ScoreNormalizer.normalize(maxSkew0, 0, 0.85, 0.7, 0.35, 0, 1.0);
             int peaksCount = 0;
             int troughsCount = 0;
             double peaksFactor = 0.01;
             double troughsFactor = 0.01;
-            if (longestSegmentRegressions != null) {
+            int[] longestSegmentCurvaturePeaksAndTroughs = getLongestSegmentCurvaturePeaksAndTroughs();
+            if (longestSegmentCurvaturePeaksAndTroughs != null) {
                 peaksCount = longestSegmentCurvaturePeaksAndTroughs[0];
                 troughsCount = longestSegmentCurvaturePeaksAndTroughs[1];
                 if (getSegments().size() == 0) {
@@ -0,0 +1,190 @@
+package main;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classifies many images across all cores with a shared {@link DigitRecognizer}.<br>
+ * At most {@code maxInFlight} images are loaded or analyzed at any time: the submitting thread blocks until a worker
+ * finishes, so memory stays flat no matter how many sources are fed in.
+ */
+public class BatchDigitRecognizer {
+    private final DigitRecognizer recognizer;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    public BatchDigitRecognizer(DigitRecognizer recognizer) {
+        this(recognizer, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism() * 2);
+    }
+
+    /**
+     * @param recognizer the engine every image is analyzed with
+     * @param executor the executor running the analysis of each image
+     * @param maxInFlight the maximum number of images submitted but not yet finished
+     */
+    public BatchDigitRecognizer(DigitRecognizer recognizer, Executor executor, int maxInFlight) {
+        if (recognizer == null) throw new IllegalArgumentException("No recognizer specified");
+        if (executor == null) throw new IllegalArgumentException("No executor specified");
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight(" + maxInFlight + ") must be at least 1");
+        this.recognizer = recognizer;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public DigitRecognizer getRecognizer() {
+        return recognizer;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Classifies every readable image file in the directory.
+     * @param directory the directory containing the images
+     * @param listener the listener notified of every result, called from the worker threads
+     * @return the summary of the batch
+     * @throws IOException if the directory cannot be listed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Summary process(File directory, Listener<File> listener) throws IOException, InterruptedException {
+        Set<String> suffixes = new HashSet<>();
+        for (String suffix : ImageIO.getReaderFileSuffixes()) {
+            suffixes.add(suffix.toLowerCase(Locale.ROOT));
+        }
+        File[] files = directory.listFiles(f -> {
+            String name = f.getName();
+            int dot = name.lastIndexOf('.');
+            return f.isFile() && dot >= 0 && suffixes.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+        });
+        if (files == null) throw new IOException("Cannot list directory " + directory);
+        Arrays.sort(files);
+        return process(Arrays.asList(files).iterator(), f -> {
+            BufferedImage image = ImageIO.read(f);
+            if (image == null) throw new IOException("Unsupported image " + f);
+            return image;
+        }, listener);
+    }
+
+    /**
+     * Classifies the images of every source. The sources are pulled lazily and each one is only loaded by the worker
+     * analyzing it.
+     * @param sources the sources of the images
+     * @param loader the loader reading the image of a source
+     * @param listener the listener notified of every result, called from the worker threads
+     * @param <T> the type of the sources
+     * @return the summary of the batch
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public <T> Summary process(Iterator<? extends T> sources, ImageLoader<? super T> loader, Listener<? super T> listener) throws InterruptedException {
+        Semaphore permits = new Semaphore(maxInFlight);
+        AtomicInteger images = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            while (sources.hasNext()) {
+                T source = sources.next();
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            listener.onResult(source, recognizer.analyze(loader.load(source)));
+                            images.incrementAndGet();
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            listener.onFailure(source, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        } finally {
+            permits.acquireUninterruptibly(maxInFlight);
+        }
+        return new Summary(images.get(), failures.get(), System.nanoTime() - start);
+    }
+
+    public interface ImageLoader<T> {
+        BufferedImage load(T source) throws IOException;
+    }
+
+    public interface Listener<T> {
+        void onResult(T source, AnalysisResult result);
+
+        /**
+         * Called when the image of the source could not be loaded or analyzed, or when {@link #onResult} threw.
+         */
+        default void onFailure(T source, Exception error) {
+        }
+    }
+
+    public static class Summary {
+        private final int images;
+        private final int failures;
+        private final long elapsedNanos;
+
+        Summary(int images, int failures, long elapsedNanos) {
+            this.images = images;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of images classified successfully
+         */
+        public int getImages() {
+            return images;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getImagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : (images + failures) * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d images, %d failures in %.3fs (%.2f images/s)", images, failures, elapsedNanos / 1e9, getImagesPerSecond());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchDigitRecognizer <directory>...");
+            return;
+        }
+        BatchDigitRecognizer batch = new BatchDigitRecognizer(new DigitRecognizer());
+        for (String arg : args) {
+            Summary summary = batch.process(new File(arg), new Listener<File>() {
+                @Override
+                public void onResult(File source, AnalysisResult result) {
+                    AnalysisResult.CharacterCertainty c = result.getHighestCharacterCertainty();
+                    System.out.println(source.getName() + ": " + (c == null ? "?" : c + " " + c.getCertainty()));
+                }
+
+                @Override
+                public void onFailure(File source, Exception error) {
+                    System.out.println(source.getName() + ": failed (" + error + ")");
+                }
+            });
+            System.out.println(arg + ": " + summary);
+        }
+    }
+}
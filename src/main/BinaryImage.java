@@ -0,0 +1,83 @@
+package main;
+
+import java.awt.image.BufferedImage;
+import java.util.function.IntPredicate;
+
+/**
+ * Black and white image stored as one byte per pixel in a row-major array, where {@code 1} is a filled (black) pixel
+ * and {@code 0} is an empty (white) one.
+ */
+public class BinaryImage {
+    private final int width;
+    private final int height;
+    private final byte[] data;
+
+    public BinaryImage(int width, int height) {
+        if (width < 0 || height < 0) throw new IllegalArgumentException("width(" + width + ") and height(" + height + ") must not be negative");
+        this.width = width;
+        this.height = height;
+        this.data = new byte[width * height];
+    }
+
+    static BinaryImage of(ArgbImage image, IntPredicate isFilled) {
+        int[] pixels = image.getPixels();
+        BinaryImage binaryImage = new BinaryImage(image.getWidth(), image.getHeight());
+        byte[] data = binaryImage.data;
+        for (int i = 0; i < data.length; i++) {
+            if (isFilled.test(pixels[i])) {
+                data[i] = 1;
+            }
+        }
+        return binaryImage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the backing array, indexed by {@code y * width + x}
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    public boolean isFilled(int x, int y) {
+        return data[y * width + x] != 0;
+    }
+
+    public void setFilled(int x, int y, boolean filled) {
+        data[y * width + x] = (byte) (filled ? 1 : 0);
+    }
+
+    public int getFilledCount() {
+        int count = 0;
+        for (byte b : data) {
+            count += b;
+        }
+        return count;
+    }
+
+    public BinaryImage copy() {
+        BinaryImage copy = new BinaryImage(width, height);
+        System.arraycopy(data, 0, copy.data, 0, data.length);
+        return copy;
+    }
+
+    public ArgbImage toArgbImage() {
+        ArgbImage image = new ArgbImage(width, height);
+        int[] pixels = image.getPixels();
+        for (int i = 0; i < data.length; i++) {
+            pixels[i] = data[i] != 0 ? 0xFF000000 : 0xFFFFFFFF;
+        }
+        return image;
+    }
+
+    public BufferedImage toBufferedImage() {
+        return toArgbImage().toBufferedImage();
+    }
+}
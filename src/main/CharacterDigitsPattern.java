@@ -25,9 +25,9 @@ public class CharacterDigitsPattern {
             double largestLoopSize = dataSet.getLoopsDistance().values().stream().max(Double::compare).orElse(Double.NaN);
             double loopsWeightedCount = loops.stream().mapToDouble(loop -> dataSet.getLoopsDistance().get(loop) / largestLoopSize).sum();
             double loopsWeightedCountFactor = loopsWeightedCount == 0 || Double.isNaN(loopsWeightedCount) ? 0.05 : ScoreNormalizer.normalize(loopsWeightedCount, 1.0, 1.0, 0.3, 0.4, 0, 1.0);
-            double maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI / 2.0);
+            double maxSkew90 = dataSet.getSkewness(Math.PI / 2.0);
             double skew90Factor = ScoreNormalizer.normalize(maxSkew90, 0, 0.25, 0.6, 0.4, 10.0, 1.0);
-            double maxSkew0 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), 0.0);
+            double maxSkew0 = dataSet.getSkewness(0.0);
             double skew0Factor = ScoreNormalizer.normalize(maxSkew0, 0, 0.32, 0.4, 0.55, 10.0, 1.0);
             double maxCurve = dataSet.getMaxCurve();
             double curveFactor = ScoreNormalizer.normalize(maxCurve, 3.5, 3.0, 0.85, 0.3, 0, 1.0);
@@ -188,28 +188,16 @@ public class CharacterDigitsPattern {
                     peaksTroughsFactor *= ScoreNormalizer.normalizePositive(Math.max(topPeaksTroughs[0], topPeaksTroughs[1]), 1.0, 1.5, 0.5, 0.4, 0, 1.0, 3.0);
                 }
             }
-            double minX = Double.POSITIVE_INFINITY;
-            double maxX = Double.NEGATIVE_INFINITY;
-            double minY = Double.POSITIVE_INFINITY;
-            double maxY = Double.NEGATIVE_INFINITY;
-            for (PixelNodeGraph.PixelNode n : dataSet.getGraph().getNodes()) {
-                double x = n.getLocationX();
-                double y = n.getLocationY();
-                minX = Math.min(minX, x);
-                maxX = Math.max(maxX, x);
-                minY = Math.min(minY, y);
-                maxY = Math.max(maxY, y);
-            }
-            double width = maxX - minX;
-            double height = maxY - minY;
+            double width = dataSet.getWidth();
+            double height = dataSet.getHeight();
             double maxSkew90 = Double.NaN;
             double skew90Factor = 0.01;
             double maxSkew180 = Double.NaN;
             double skew180Factor = 0.01;
             if (width >= 0 && height >= 0) {
-                maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI / 2.0);
+                maxSkew90 = dataSet.getSkewness(Math.PI / 2.0);
                 skew90Factor = ScoreNormalizer.normalize(maxSkew90, 0, 0.35, 0.9, 0.25, 0, 1);
-                maxSkew180 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI) / height * width;
+                maxSkew180 = dataSet.getSkewness(Math.PI) / height * width;
                 skew180Factor = ScoreNormalizer.normalize(maxSkew180, 0.35, 0.4, 0.8, 0.25, 0, 1);
             }
             double longestLoopDistance = loops.stream()
@@ -274,10 +262,10 @@ public class CharacterDigitsPattern {
             PixelNodeGraph.OpenSegment leftMostSegment = dataSet.getLongestSegment();
             int loops = dataSet.getLoops().size();
             double loopsFactor = ScoreNormalizer.normalizeNegative(loops, 1.0, 1.0, 0.999, 0.2, 0, 1.0, 1.05);
-            double maxSkew0 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI * 0);
-            double maxSkew45 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI * 0.25);
-            double maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI * 0.5);
-            double maxSkew135 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI * 0.75);
+            double maxSkew0 = dataSet.getSkewness(Math.PI * 0);
+            double maxSkew45 = dataSet.getSkewness(Math.PI * 0.25);
+            double maxSkew90 = dataSet.getSkewness(Math.PI * 0.5);
+            double maxSkew135 = dataSet.getSkewness(Math.PI * 0.75);
             double bottomAngle = Double.NaN;
             double bottomAngleFactor = 0.01;
             if (bottomMostSegment != null) {
@@ -502,7 +490,7 @@ public class CharacterDigitsPattern {
                     .filter(loop -> dataSet.getLoopsDistance().get(loop) >= dataSet.getTotalSegmentsDistance() * 0.1)
                     .collect(Collectors.toSet());
             double loopsFactor = ScoreNormalizer.normalizePositive(loops.size(), 1.0, 0.67, 0.8, 0.47, 0, 1.0, 10.0);
-            double maxSkew270 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI * 3.0 / 2.0);
+            double maxSkew270 = dataSet.getSkewness(Math.PI * 3.0 / 2.0);
             double maxSkewFactor = ScoreNormalizer.normalize(maxSkew270, 0.5, 0.5, 0.8, 0.22, 0, 1.0);
 
             PixelNodeGraph.OpenSegment longestNonLoop = dataSet.getSegments()
@@ -721,9 +709,9 @@ public class CharacterDigitsPattern {
                     .get(largest2Loop) : Double.NaN;
             double largestLoopsRatioFactor = Double.isNaN(largestLoopsRatio) ? 0.01 : ScoreNormalizer.normalize(largestLoopsRatio, 1.0, 1.8, 0.4, 0.35, 0, 1.0);
 
-            double maxSkew0 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), 0);
+            double maxSkew0 = dataSet.getSkewness(0);
             double maxSkew0Factor = ScoreNormalizer.normalize(maxSkew0, 0, 1.5, 0.6, 0.5, 0, 1.0);
-            double maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI / 2.0);
+            double maxSkew90 = dataSet.getSkewness(Math.PI / 2.0);
             double maxSkew90Factor = ScoreNormalizer.normalize(maxSkew90, 0, 1.5, 0.6, 0.5, 0, 1.0);
             return new CertaintyFactor[] {
                     new CertaintyFactor("Loops-Weighted", loopsWeightedCountFactor, loopsWeightedCount),
@@ -741,7 +729,7 @@ public class CharacterDigitsPattern {
                     .filter(loop -> dataSet.getLoopsDistance().get(loop) >= dataSet.getTotalSegmentsDistance() * 0.1)
                     .collect(Collectors.toSet());
             double loopsFactor = ScoreNormalizer.normalizePositive(loops.size(), 1.0, 0.67, 0.8, 0.47, 0, 1.0, 10.0);
-            double maxSkew90 = PixelNodeGraph.OpenSegment.getSkewness(dataSet.getGraph().getNodes(), Math.PI / 2.0);
+            double maxSkew90 = dataSet.getSkewness(Math.PI / 2.0);
             double maxSkewFactor = ScoreNormalizer.normalize(maxSkew90, 0.35, 0.35, 0.8, 0.22, 0, 1.0);
 
             PixelNodeGraph.OpenSegment longestNonLoop = dataSet.getSegments()
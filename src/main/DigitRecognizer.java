@@ -0,0 +1,163 @@
+package main;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Headless engine running the digit recognition pipeline on a single image.<br>
+ * Every call works on its own graph and data set, so one instance can be shared between threads.
+ */
+public class DigitRecognizer {
+    private final List<BasicCharacterPattern> characterPatterns;
+    private final ImageAnalysis.ThresholdMode thresholdMode;
+    private final Skeletonizer skeletonizer;
+    private final double blackThreshold;
+    private final boolean keepProcessImages;
+
+    public DigitRecognizer() {
+        this(false);
+    }
+
+    public DigitRecognizer(boolean keepProcessImages) {
+        this(CharacterDigitsPattern.CHARACTERS_DIGITS_SET, 0.7, keepProcessImages);
+    }
+
+    /**
+     * @param characterPatterns the patterns the graph of each image is tested against
+     * @param blackThreshold the intensity below which a pixel is treated as part of a stroke
+     * @param keepProcessImages whether to render the intermediate images of the pipeline into the results
+     */
+    public DigitRecognizer(Collection<? extends BasicCharacterPattern> characterPatterns, double blackThreshold, boolean keepProcessImages) {
+        this(characterPatterns, ImageAnalysis.ThresholdMode.FIXED, blackThreshold, keepProcessImages);
+    }
+
+    /**
+     * @param characterPatterns the patterns the graph of each image is tested against
+     * @param thresholdMode the way the image is split into stroke and background pixels
+     * @param blackThreshold the intensity below which a pixel is treated as part of a stroke, see
+     *                       {@link ImageAnalysis#binarize(ArgbImage, ImageAnalysis.ThresholdMode, double)}
+     * @param keepProcessImages whether to render the intermediate images of the pipeline into the results
+     */
+    public DigitRecognizer(Collection<? extends BasicCharacterPattern> characterPatterns, ImageAnalysis.ThresholdMode thresholdMode, double blackThreshold, boolean keepProcessImages) {
+        this(characterPatterns, thresholdMode, Skeletonizer.NODE_MERGING, blackThreshold, keepProcessImages);
+    }
+
+    /**
+     * @param characterPatterns the patterns the graph of each image is tested against
+     * @param thresholdMode the way the image is split into stroke and background pixels
+     * @param skeletonizer the way strokes are reduced to lines of nodes
+     * @param blackThreshold the intensity below which a pixel is treated as part of a stroke, see
+     *                       {@link ImageAnalysis#binarize(ArgbImage, ImageAnalysis.ThresholdMode, double)}
+     * @param keepProcessImages whether to render the intermediate images of the pipeline into the results
+     */
+    public DigitRecognizer(Collection<? extends BasicCharacterPattern> characterPatterns, ImageAnalysis.ThresholdMode thresholdMode, Skeletonizer skeletonizer, double blackThreshold, boolean keepProcessImages) {
+        if (characterPatterns == null || characterPatterns.isEmpty()) throw new IllegalArgumentException("No character patterns specified");
+        if (thresholdMode == null) throw new IllegalArgumentException("No threshold mode specified");
+        if (skeletonizer == null) throw new IllegalArgumentException("No skeletonizer specified");
+        if (!(blackThreshold > 0 && blackThreshold <= 1)) throw new IllegalArgumentException("blackThreshold(" + blackThreshold + ") must be in the range (0, 1]");
+        this.characterPatterns = Collections.unmodifiableList(new ArrayList<>(characterPatterns));
+        this.thresholdMode = thresholdMode;
+        this.skeletonizer = skeletonizer;
+        this.blackThreshold = blackThreshold;
+        this.keepProcessImages = keepProcessImages;
+    }
+
+    public List<BasicCharacterPattern> getCharacterPatterns() {
+        return characterPatterns;
+    }
+
+    public ImageAnalysis.ThresholdMode getThresholdMode() {
+        return thresholdMode;
+    }
+
+    public Skeletonizer getSkeletonizer() {
+        return skeletonizer;
+    }
+
+    public boolean isKeepProcessImages() {
+        return keepProcessImages;
+    }
+
+    /**
+     * Recognizes the character drawn in the image.
+     * @param inputImage the image to analyze
+     * @return the certainty of every character pattern, highest first
+     */
+    public List<AnalysisResult.CharacterCertainty> recognize(BufferedImage inputImage) {
+        return Arrays.asList(analyze(inputImage).getCharacterCertainties());
+    }
+
+    public AnalysisResult analyze(BufferedImage inputImage) {
+        return analyze(inputImage, keepProcessImages);
+    }
+
+    /**
+     * Runs the whole pipeline on the image.
+     * @param inputImage the image to analyze
+     * @param keepProcessImages whether to render the intermediate images of the pipeline into the result
+     * @return the result of the analysis
+     */
+    public AnalysisResult analyze(BufferedImage inputImage, boolean keepProcessImages) {
+        if (inputImage == null) throw new IllegalArgumentException("No image specified");
+        Map<Image, String> processImages = keepProcessImages ? new LinkedHashMap<>() : null;
+        if (keepProcessImages) processImages.put(inputImage, "01) Original");
+        BinaryImage image2 = ImageAnalysis.binarize(inputImage, thresholdMode, blackThreshold);
+        if (keepProcessImages) processImages.put(image2.toBufferedImage(), "02) GrayScale");
+        BinaryImage image = ImageAnalysis.fillLoops(image2, s -> s.getArea() < 0.0001 * image2.getWidth() * image2.getHeight());
+        if (skeletonizer == Skeletonizer.THINNING) {
+            image = ImageAnalysis.thin(image);
+        }
+
+        PixelNodeGraph graph = PixelNodeGraph.createGraphFromImage(image);
+        graph.replaceRectangles();
+        graph.replaceShortConnectorSegments();
+        if (keepProcessImages) processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "03) Nodes Reduction");
+
+        Set<PixelNodeGraph.OpenSegment> segments = graph.getOpenSegments();
+        graph.connectNearbyEnds();
+        if (keepProcessImages) processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "04) Segment Connection");
+        if (segments.size() > 2) {
+            // Remove tiny segments that is likely 'noise'
+            double totalSegmentLength = segments.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum();
+            double largestSegmentLength = segments.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).max().orElse(0);
+            segments.stream().filter(s -> s.isEdge() && s.getDistance() < totalSegmentLength * 0.025 && s.getDistance() < largestSegmentLength * 0.075).forEach(graph::removeSegment);
+            segments = graph.getOpenSegments();
+            Set<PixelNodeGraph.OpenSegment> removeSegmentsLoops = new HashSet<>();
+            for (PixelNodeGraph.OpenSegment s1 : segments) {
+                removeSegmentsLoops.addAll(segments.stream()
+                        .filter(s2 -> s1 != s2 && s1.getDistance() >= s2.getDistance() && ((s1.getEndNode1() == s2.getEndNode1() && s1.getEndNode2() == s2.getEndNode2()) || (s1.getEndNode1() == s2.getEndNode2() && s1.getEndNode2() == s2.getEndNode1()))
+                                && s2.getDistance() < totalSegmentLength * 0.025 && s2.getDistance() < largestSegmentLength * 0.075)
+                        .collect(Collectors.toSet()));
+            }
+            removeSegmentsLoops.forEach(graph::removeSegment);
+            segments = graph.getOpenSegments();
+        }
+        if (keepProcessImages) processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "05) Segment Removal");
+
+        AnalysisResult result = new AnalysisResult(graph);
+        characterPatterns.forEach(result::addCharacterCertainty);
+
+        if (keepProcessImages) {
+            BufferedImage segmentsImage = PixelNodeGraph.toImage(segments, image.getWidth(), image.getHeight());
+            processImages.put(segmentsImage, "06) Segments");
+            processImages.forEach(result::addImage);
+            result.setSegmentsImage(segmentsImage);
+        }
+        return result;
+    }
+
+    public enum Skeletonizer {
+        /**
+         * Strokes are reduced on the pixel graph, by merging blocks of nodes and short connectors between junctions.
+         */
+        NODE_MERGING,
+        /**
+         * Strokes are thinned to one pixel on the image before the graph is built, which is faster on thick strokes.
+         * Junction connectors are still merged on the graph.
+         */
+        THINNING
+    }
+}
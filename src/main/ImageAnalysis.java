@@ -5,29 +5,26 @@ import maths.Statistics;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 
 public class ImageAnalysis {
 
     static int countLoops(BufferedImage image, Predicate<Integer> isFilled) {
+        return countLoops(ArgbImage.of(image), isFilled::test);
+    }
+
+    static int countLoops(ArgbImage image, IntPredicate isFilled) {
+        return countLoops(BinaryImage.of(image, isFilled));
+    }
+
+    static int countLoops(BinaryImage image) {
         int count = 0;
-        boolean[][] filledPixels = new boolean[image.getHeight()][image.getWidth()];
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                filledPixels[y][x] = isFilled.test(image.getRGB(x, y));
-            }
-        }
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                if (!filledPixels[y][x]) {
-                    Set<Point> fillArea = floodFillArea(filledPixels, x, y, false);
-                    if (fillArea.size() > 0) {
-                        count++;
-                    }
-                }
-            }
+        for (PixelRegion component : labelComponents(image, true, new int[image.getWidth() * image.getHeight()])) {
+            count += component.getHoleCount();
         }
         return count;
     }
@@ -36,10 +33,9 @@ public class ImageAnalysis {
         if (image.getWidth() == 0 || image.getHeight() == 0) {
             return image;
         }
-        BufferedImage outImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = outImage.createGraphics();
-        g2.setColor(Color.WHITE);
-        g2.fillRect(0, 0, outImage.getWidth(), outImage.getHeight());
+        ArgbImage argbImage = ArgbImage.of(image);
+        ArgbImage outImage = new ArgbImage(image.getWidth(), image.getHeight());
+        Arrays.fill(outImage.getPixels(), 0xFFFFFFFF);
 
         class CellVector2D {
             int x;
@@ -196,7 +192,7 @@ public class ImageAnalysis {
         for (int y = 0; y < image.getHeight(); y++) {
             cellData[y] = new CellVector2D[image.getWidth()];
             for (int x = 0; x < image.getWidth(); x++) {
-                double[] sobel = sobelOperator(image, x, y);
+                double[] sobel = sobelOperator(argbImage, x, y);
                 cellData[y][x] = new CellVector2D(x, y, sobel[0], sobel[1]);
             }
         }
@@ -204,16 +200,16 @@ public class ImageAnalysis {
         Map<CellVector2D, Double> distances = new HashMap<>();
 
         // Search for edges (an edge is currently defined as an empty node with at least 2 of the 8 neighboring nodes being empty)
-        Predicate<Integer> isFilledPixel = i -> (i & 0x00FFFFFF) != 0xFFFFFF;
+        IntPredicate isFilledPixel = i -> (i & 0x00FFFFFF) != 0xFFFFFF;
         for (int y = 0; y < vecLoopCells.length; y++) {
             for (int x = 0; x < vecLoopCells[y].length; x++) {
                 vecLoopCells[y][x] = null;
-                if (!isFilledPixel.test(image.getRGB(x, y))) {
+                if (!isFilledPixel.test(argbImage.getRGB(x, y))) {
                     int emptyNeighborCount = 0;
                     for (int y2 = y - 1; y2 <= y + 1 && emptyNeighborCount < 2; y2++) {
                         if (y2 >= 0 && y2 < cellData.length) {
                             for (int x2 = x - 1; x2 <= x + 1; x2++) {
-                                if (x2 >= 0 && x2 < cellData[y2].length && isFilledPixel.test(image.getRGB(x2, y2))) {
+                                if (x2 >= 0 && x2 < cellData[y2].length && isFilledPixel.test(argbImage.getRGB(x2, y2))) {
                                     emptyNeighborCount++;
                                     if (emptyNeighborCount >= 2) {
                                         vecLoopCells[y][x] = cellData[y][x];
@@ -236,11 +232,11 @@ public class ImageAnalysis {
                 }
             }
         }
-        double[] outliersRange = Statistics.tukeyRangeTest(distances.values().stream().mapToDouble(Math::abs).boxed().collect(Collectors.toList()));
+        double[] outliersRange = Statistics.tukeyRangeTest(distances.values().stream().mapToDouble(Math::abs).toArray());
         Map<CellVector2D, Double> filteredDistances = distances.entrySet().stream()
                 .filter(e -> Math.abs(e.getValue()) >= outliersRange[0] && Math.abs(e.getValue()) <= outliersRange[1])
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        Collection<Double> filteredDistancesAbs = filteredDistances.values().stream().mapToDouble(Math::abs).boxed().collect(Collectors.toList());
+        double[] filteredDistancesAbs = filteredDistances.values().stream().mapToDouble(Math::abs).toArray();
         double meanDistance = Statistics.getMean(filteredDistancesAbs);
         double sdDistance = Statistics.getStandardDeviation(filteredDistancesAbs);
         if (meanDistance < 2.5) {
@@ -265,10 +261,24 @@ public class ImageAnalysis {
                 done.add(opposite);
             }
         }
-        Map<Integer, Set<Point>> groupIDsMap = new HashMap<>();
+        // Every 8-connected group takes the ID of its first pixel in raster order
+        BinaryImage groups = new BinaryImage(image.getWidth(), image.getHeight());
         for (int y = 0; y < groupID.length; y++) {
             for (int x = 0; x < groupID[y].length; x++) {
-                floodFillArea(groupID, x, y);
+                groups.setFilled(x, y, groupID[y][x] != 0);
+            }
+        }
+        int[] labels = new int[image.getWidth() * image.getHeight()];
+        int[] labelIDs = new int[labelRegions(groups, true, true, labels).size() + 1];
+        Map<Integer, Set<Point>> groupIDsMap = new HashMap<>();
+        for (int y = 0, i = 0; y < groupID.length; y++) {
+            for (int x = 0; x < groupID[y].length; x++, i++) {
+                if (labels[i] != 0) {
+                    if (labelIDs[labels[i]] == 0) {
+                        labelIDs[labels[i]] = groupID[y][x];
+                    }
+                    groupID[y][x] = labelIDs[labels[i]];
+                }
                 if (groupID[y][x] != 0) {
                     Set<Point> set = groupIDsMap.get(groupID[y][x]);
                     if (set != null) {
@@ -343,124 +353,172 @@ public class ImageAnalysis {
                 }
             }
         }
-        return outImage;
+        return outImage.toBufferedImage();
     }
 
-    private static void floodFillArea(int[][] groupID, int x, int y) {
-        int fillID = groupID[y][x];
-        if (fillID != 0) {
-            java.util.List<Point> toFill = new ArrayList<>();
-            toFill.add(new Point(x, y));
-            while (toFill.size() > 0) {
-                Point current = toFill.get(0);
-                toFill.remove(current);
-                if (current.y >= 0 && current.y < groupID.length && current.x >= 0 && current.x < groupID[current.y].length && groupID[current.y][current.x] != 0) {
-                    groupID[current.y][current.x] = fillID;
-                    if (current.x >= 1 && groupID[current.y][current.x - 1] != 0 && groupID[current.y][current.x - 1] != fillID) {
-                        toFill.add(new Point(current.x - 1, current.y));
-                    }
-                    if (current.x < groupID[current.y].length - 1 && groupID[current.y][current.x + 1] != 0 && groupID[current.y][current.x + 1] != fillID) {
-                        toFill.add(new Point(current.x + 1, current.y));
-                    }
-                    if (current.y >= 1) {
-                        if (groupID[current.y - 1][current.x] != 0 && groupID[current.y - 1][current.x] != fillID) {
-                            toFill.add(new Point(current.x, current.y - 1));
-                        }
-                        if (current.x >= 1 && groupID[current.y - 1][current.x - 1] != 0 && groupID[current.y - 1][current.x - 1] != fillID) {
-                            toFill.add(new Point(current.x - 1, current.y - 1));
-                        }
-                        if (current.x < groupID[current.y - 1].length - 1 && groupID[current.y - 1][current.x + 1] != 0 && groupID[current.y - 1][current.x + 1] != fillID) {
-                            toFill.add(new Point(current.x + 1, current.y - 1));
-                        }
-                    }
-                    if (current.y < groupID.length - 1) {
-                        if (groupID[current.y + 1][current.x] != 0 && groupID[current.y + 1][current.x] != fillID) {
-                            toFill.add(new Point(current.x, current.y + 1));
-                        }
-                        if (current.x >= 1 && groupID[current.y + 1][current.x - 1] != 0 && groupID[current.y + 1][current.x - 1] != fillID) {
-                            toFill.add(new Point(current.x - 1, current.y + 1));
-                        }
-                        if (current.x < groupID[current.y + 1].length - 1 && groupID[current.y + 1][current.x + 1] != 0 && groupID[current.y + 1][current.x + 1] != fillID) {
-                            toFill.add(new Point(current.x + 1, current.y + 1));
-                        }
-                    }
+    /**
+     * Labels the ink blobs of the image and counts their holes. The background is labelled with the opposite
+     * connectivity, and every enclosed background region is a hole of the blob right above its first pixel.
+     * @param image the image to label
+     * @param eightConnected whether diagonal neighbors belong to the same blob
+     * @param labels the array receiving the blob of each pixel, see {@link #labelRegions(BinaryImage, boolean, boolean, int[])}
+     * @return the blobs, where the blob labelled {@code n} is at index {@code n - 1}
+     */
+    static java.util.List<PixelRegion> labelComponents(BinaryImage image, boolean eightConnected, int[] labels) {
+        java.util.List<PixelRegion> components = labelRegions(image, true, eightConnected, labels);
+        int width = image.getWidth();
+        int[] backgroundLabels = new int[width * image.getHeight()];
+        java.util.List<PixelRegion> background = labelRegions(image, false, !eightConnected, backgroundLabels);
+        int nextLabel = 1;
+        for (int i = 0; i < backgroundLabels.length && nextLabel <= background.size(); i++) {
+            if (backgroundLabels[i] == nextLabel) {
+                if (!background.get(nextLabel - 1).isTouchingBorder()) {
+                    components.get(labels[i - width] - 1).addHole();
                 }
+                nextLabel++;
             }
         }
+        return components;
     }
 
-    private static Set<Point> floodFillArea(boolean[][] isFilled, int x, int y, boolean includeOutside) {
-        Set<Point> filled = new HashSet<>();
-        if (!isFilled[y][x]) {
-            boolean isOutside = false;
-            java.util.List<Point> toFill = new ArrayList<>();
-            toFill.add(new Point(x, y));
-            while (toFill.size() > 0) {
-                Point current = toFill.get(0);
-                toFill.remove(current);
-                if (current.y >= 0 && current.y < isFilled.length && current.x >= 0 && current.x < isFilled[current.y].length && !isFilled[current.y][current.x]) {
-                    if (current.y == 0 || current.y == isFilled.length - 1 || current.x == 0 || current.x == isFilled[current.y - 1].length - 1) {
-                        isOutside = true;
+    /**
+     * Labels the connected regions of filled or empty pixels with a scanline fill: every horizontal span is labelled
+     * at once and only the start of each span of the rows above and below is pushed, so the work is linear in the
+     * number of pixels and nothing is allocated per pixel.<br>
+     * Regions are labelled in the raster order of their first pixel.
+     * @param image the image to label
+     * @param filled whether to label the filled or the empty pixels
+     * @param eightConnected whether diagonal neighbors belong to the same region
+     * @param labels the array receiving the label of each pixel, indexed by {@code y * width + x}, 0 for pixels
+     *               outside all regions. It must be cleared.
+     * @return the regions, where the region labelled {@code n} is at index {@code n - 1}
+     */
+    static java.util.List<PixelRegion> labelRegions(BinaryImage image, boolean filled, boolean eightConnected, int[] labels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (labels.length < width * height) throw new IllegalArgumentException("labels.length(" + labels.length + ") must be at least " + width * height);
+        byte[] data = image.getData();
+        byte value = (byte) (filled ? 1 : 0);
+        java.util.List<PixelRegion> regions = new ArrayList<>();
+        int[] stack = new int[64];
+        for (int start = 0; start < data.length; start++) {
+            if (data[start] != value || labels[start] != 0) continue;
+            PixelRegion region = new PixelRegion(regions.size() + 1);
+            regions.add(region);
+            int size = 0;
+            stack[size++] = start;
+            while (size > 0) {
+                int seed = stack[--size];
+                if (labels[seed] != 0) continue;
+                int y = seed / width;
+                int rowStart = y * width;
+                int x1 = seed - rowStart;
+                int x2 = x1;
+                while (x1 > 0 && data[rowStart + x1 - 1] == value && labels[rowStart + x1 - 1] == 0) x1--;
+                while (x2 < width - 1 && data[rowStart + x2 + 1] == value && labels[rowStart + x2 + 1] == 0) x2++;
+                Arrays.fill(labels, rowStart + x1, rowStart + x2 + 1, region.getLabel());
+                region.addSpan(y, x1, x2, x1 == 0 || x2 == width - 1 || y == 0 || y == height - 1);
+                int nx1 = eightConnected ? Math.max(x1 - 1, 0) : x1;
+                int nx2 = eightConnected ? Math.min(x2 + 1, width - 1) : x2;
+                for (int ny = y - 1; ny <= y + 1; ny += 2) {
+                    if (ny < 0 || ny >= height) continue;
+                    boolean inSpan = false;
+                    for (int i = ny * width + nx1, end = ny * width + nx2; i <= end; i++) {
+                        boolean open = data[i] == value && labels[i] == 0;
+                        if (open && !inSpan) {
+                            if (size == stack.length) {
+                                stack = Arrays.copyOf(stack, size * 2);
+                            }
+                            stack[size++] = i;
+                        }
+                        inSpan = open;
                     }
-                    isFilled[current.y][current.x] = true;
-                    filled.add(current);
-                    toFill.add(new Point(current.x - 1, current.y));
-                    toFill.add(new Point(current.x + 1, current.y));
-                    toFill.add(new Point(current.x, current.y - 1));
-                    toFill.add(new Point(current.x, current.y + 1));
                 }
             }
-            if (isOutside && !includeOutside) {
-                return new HashSet<>();
-            }
         }
-        return filled;
+        return regions;
     }
 
-    static BufferedImage fillLoops(BufferedImage image, Color fillColor, Predicate<Integer> isFilled, Predicate<Set<Point>> shouldFill) {
-        boolean[][] filledPixels = new boolean[image.getHeight()][image.getWidth()];
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                filledPixels[y][x] = isFilled.test(image.getRGB(x, y));
+    static BufferedImage fillLoops(BufferedImage image, Color fillColor, Predicate<Integer> isFilled, Predicate<PixelRegion> shouldFill) {
+        return fillLoops(ArgbImage.of(image), fillColor.getRGB(), isFilled::test, shouldFill).toBufferedImage();
+    }
+
+    static ArgbImage fillLoops(ArgbImage image, int fillRGB, IntPredicate isFilled, Predicate<PixelRegion> shouldFill) {
+        ArgbImage outImage = image.copy();
+        int[] labels = new int[image.getWidth() * image.getHeight()];
+        boolean[] fillLabels = getLoopLabels(BinaryImage.of(image, isFilled), labels, shouldFill);
+        int[] pixels = outImage.getPixels();
+        for (int i = 0; i < labels.length; i++) {
+            if (fillLabels[labels[i]]) {
+                pixels[i] = fillRGB;
             }
         }
-        java.util.List<Set<Point>> areas = new ArrayList<>();
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                if (!filledPixels[y][x]) {
-                    Set<Point> fillArea = floodFillArea(filledPixels, x, y, false);
-                    if (fillArea.size() > 0) {
-                        areas.add(fillArea);
-                    }
-                }
+        return outImage;
+    }
+
+    /**
+     * Fills the enclosed empty regions (the insides of loops) accepted by the predicate.
+     * @param image the image to fill
+     * @param shouldFill the predicate deciding from the size and bounds of each enclosed region whether to fill it
+     * @return the filled copy of the image
+     */
+    static BinaryImage fillLoops(BinaryImage image, Predicate<PixelRegion> shouldFill) {
+        BinaryImage outImage = image.copy();
+        int[] labels = new int[image.getWidth() * image.getHeight()];
+        boolean[] fillLabels = getLoopLabels(image, labels, shouldFill);
+        byte[] data = outImage.getData();
+        for (int i = 0; i < labels.length; i++) {
+            if (fillLabels[labels[i]]) {
+                data[i] = 1;
             }
         }
-        BufferedImage outImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = outImage.createGraphics();
-        g2.drawImage(image, 0, 0, null);
-        areas.stream()
-                .filter(shouldFill)
-                .forEach(a -> a
-                        .forEach(p -> outImage.setRGB(p.x, p.y, fillColor.getRGB())));
         return outImage;
     }
 
+    private static boolean[] getLoopLabels(BinaryImage image, int[] labels, Predicate<PixelRegion> shouldFill) {
+        java.util.List<PixelRegion> regions = labelRegions(image, false, false, labels);
+        boolean[] fillLabels = new boolean[regions.size() + 1];
+        for (PixelRegion region : regions) {
+            fillLabels[region.getLabel()] = !region.isTouchingBorder() && shouldFill.test(region);
+        }
+        return fillLabels;
+    }
+
     static BufferedImage filter(BufferedImage image, ImageFilter filter, int filterSize) {
-        BufferedImage outImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = outImage.createGraphics();
-        g2.setColor(Color.WHITE);
-        g2.fillRect(0, 0, outImage.getWidth(), outImage.getHeight());
+        return filter(ArgbImage.of(image), filter, filterSize).toBufferedImage();
+    }
 
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                outImage.setRGB(x, y, filter.filter(image, x, y, filterSize).getRGB());
+    static ArgbImage filter(ArgbImage image, ImageFilter filter, int filterSize) {
+        if (filter instanceof IntFilterAdapter) {
+            return filterInt(image, ((IntFilterAdapter) filter).filter, filterSize);
+        }
+        BufferedImage source = image.toBufferedImage();
+        IntFilter intFilter = (image1, x, y, size) -> filter.filter(source, x, y, size).getRGB();
+        return filterInt(image, intFilter, filterSize);
+    }
+
+    static BufferedImage filterInt(BufferedImage image, IntFilter filter, int filterSize) {
+        return filterInt(ArgbImage.of(image), filter, filterSize).toBufferedImage();
+    }
+
+    static ArgbImage filterInt(ArgbImage image, IntFilter filter, int filterSize) {
+        if (filter == BLUR_INT_FILTER) {
+            return blur(image, filterSize);
+        } else if (filter == BLUR_COLOR_INT_FILTER) {
+            return blurColor(image, filterSize);
+        }
+        ArgbImage outImage = new ArgbImage(image.getWidth(), image.getHeight());
+        int[] outPixels = outImage.getPixels();
+        for (int y = 0, i = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++, i++) {
+                outPixels[i] = filter.filter(image, x, y, filterSize);
             }
         }
         return outImage;
     }
 
     static BufferedImage filter(BufferedImage image, double[][] filter) {
-        return filter(image, (image1, x, y, size) -> {
+        IntFilter intFilter = (image1, x, y, size) -> {
             double sumR = 0;
             double sumG = 0;
             double sumB = 0;
@@ -469,86 +527,553 @@ public class ImageAnalysis {
                     int x2 = x + x1 - ((filter[y1].length - 1) / 2);
                     int y2 = y + y1 - ((filter.length - 1) / 2);
                     if (x2 >= 0 && y2 >= 0 && x2 < image1.getWidth() && y2 < image1.getHeight()) {
-                        Color c = new Color(image1.getRGB(x2, y2), false);
-                        sumR += c.getRed() * filter[y1][x1];
-                        sumG += c.getGreen() * filter[y1][x1];
-                        sumB += c.getBlue() * filter[y1][x1];
+                        int rgb = image1.getRGB(x2, y2);
+                        sumR += ((rgb >> 16) & 0xFF) * filter[y1][x1];
+                        sumG += ((rgb >> 8) & 0xFF) * filter[y1][x1];
+                        sumB += (rgb & 0xFF) * filter[y1][x1];
                     }
                 }
             }
             sumR = Math.max(Math.min(sumR, 255), 0);
             sumG = Math.max(Math.min(sumG, 255), 0);
             sumB = Math.max(Math.min(sumB, 255), 0);
-            return new Color((int) sumR, (int) sumG, (int) sumB);
-        }, 1);
+            return toRGB((int) sumR, (int) sumG, (int) sumB);
+        };
+        return filterInt(image, intFilter, 1);
     }
 
-    static BufferedImage blackOrWhite(BufferedImage image, double intensityThreshold) {
-        BufferedImage outImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                if (getIntensity(new Color(image.getRGB(x, y))) >= intensityThreshold) {
-                    outImage.setRGB(x, y, 0xFFFFFFFF);
+    static BufferedImage blur(BufferedImage image, int size) {
+        return blur(ArgbImage.of(image), size).toBufferedImage();
+    }
+
+    /**
+     * Same as filtering with {@link #BLUR_INT_FILTER}, in constant time per pixel regardless of {@code size},
+     * using a summed-area table of the luminance.
+     */
+    static ArgbImage blur(ArgbImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+        long[] table = new long[(width + 1) * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                rowSum += getScaledLuminance(pixels[y * width + x]);
+                table[(y + 1) * (width + 1) + x + 1] = table[y * (width + 1) + x + 1] + rowSum;
+            }
+        }
+        ArgbImage outImage = new ArgbImage(width, height);
+        int[] outPixels = outImage.getPixels();
+        for (int y = 0, i = 0; y < height; y++) {
+            int y0 = Math.max(y - (size - 1) / 2, 0);
+            int y1 = Math.min(y + size / 2, height - 1);
+            for (int x = 0; x < width; x++, i++) {
+                int x0 = Math.max(x - (size - 1) / 2, 0);
+                int x1 = Math.min(x + size / 2, width - 1);
+                if (x0 > x1 || y0 > y1) {
+                    outPixels[i] = toGray(0);
                 } else {
-                    outImage.setRGB(x, y, 0xFF000000);
+                    long count = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+                    long sum = getTableSum(table, width + 1, x0, y0, x1, y1);
+                    outPixels[i] = toGray((int) (sum / (10000.0 * count)));
                 }
             }
         }
         return outImage;
     }
 
-    static BufferedImage add(BufferedImage image1, BufferedImage image2) {
-        if (image1.getWidth() != image2.getWidth() || image1.getHeight() != image2.getHeight()) throw new IllegalArgumentException("images are different sizes");
-        BufferedImage outImage = new BufferedImage(image1.getWidth(), image1.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2 = outImage.createGraphics();
-        g2.setColor(Color.WHITE);
-        g2.fillRect(0, 0, outImage.getWidth(), outImage.getHeight());
+    static BufferedImage blurColor(BufferedImage image, int size) {
+        return blurColor(ArgbImage.of(image), size).toBufferedImage();
+    }
 
-        for (int y = 0; y < image1.getHeight(); y++) {
-            for (int x = 0; x < image1.getWidth(); x++) {
-                Color c1 = new Color(image1.getRGB(x, y));
-                Color c2 = new Color(image2.getRGB(x, y));
-                outImage.setRGB(x, y, new Color(Math.min(c1.getRed() + c2.getRed(), 255), Math.min(c1.getGreen() + c2.getGreen(), 255), Math.min(c1.getBlue() + c2.getBlue(), 255)).getRGB());
+    /**
+     * Same as filtering with {@link #BLUR_COLOR_INT_FILTER}, in constant time per pixel regardless of {@code size},
+     * using a summed-area table per channel.
+     */
+    static ArgbImage blurColor(ArgbImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+        long[][] tables = new long[3][(width + 1) * (height + 1)];
+        for (int c = 0; c < 3; c++) {
+            long[] table = tables[c];
+            int shift = 16 - c * 8;
+            for (int y = 0; y < height; y++) {
+                long rowSum = 0;
+                for (int x = 0; x < width; x++) {
+                    rowSum += (pixels[y * width + x] >> shift) & 0xFF;
+                    table[(y + 1) * (width + 1) + x + 1] = table[y * (width + 1) + x + 1] + rowSum;
+                }
+            }
+        }
+        ArgbImage outImage = new ArgbImage(width, height);
+        int[] outPixels = outImage.getPixels();
+        for (int y = 0, i = 0; y < height; y++) {
+            int y0 = Math.max(y - (size - 1) / 2, 0);
+            int y1 = Math.min(y + size / 2, height - 1);
+            for (int x = 0; x < width; x++, i++) {
+                int x0 = Math.max(x - (size - 1) / 2, 0);
+                int x1 = Math.min(x + size / 2, width - 1);
+                if (x0 > x1 || y0 > y1) {
+                    outPixels[i] = toRGB(0, 0, 0);
+                } else {
+                    double count = (double) (x1 - x0 + 1) * (y1 - y0 + 1);
+                    outPixels[i] = toRGB((int) (getTableSum(tables[0], width + 1, x0, y0, x1, y1) / count),
+                            (int) (getTableSum(tables[1], width + 1, x0, y0, x1, y1) / count),
+                            (int) (getTableSum(tables[2], width + 1, x0, y0, x1, y1) / count));
+                }
             }
         }
         return outImage;
     }
 
+    /**
+     * Luminance of a packed RGB value scaled by 10000 * 256, so the weights of {@link #getIntensity(int)} sum exactly.
+     */
+    static long getScaledLuminance(int rgb) {
+        return 2126L * ((rgb >> 16) & 0xFF) + 7152L * ((rgb >> 8) & 0xFF) + 722L * (rgb & 0xFF);
+    }
+
+    private static long getTableSum(long[] table, int stride, int x0, int y0, int x1, int y1) {
+        return table[(y1 + 1) * stride + x1 + 1] - table[y0 * stride + x1 + 1] - table[(y1 + 1) * stride + x0] + table[y0 * stride + x0];
+    }
+
+    static BufferedImage gaussianBlur(BufferedImage image, double sigma) {
+        return gaussianBlur(ArgbImage.of(image), sigma).toBufferedImage();
+    }
+
+    /**
+     * Blurs the luminance with a Gaussian kernel of radius {@code ceil(3 * sigma)}, as a horizontal and a vertical
+     * 1-D pass. Near the borders the kernel is renormalized over the pixels inside the image.
+     * @param image the image to blur
+     * @param sigma the standard deviation of the kernel in pixels
+     * @return the blurred grayscale image
+     */
+    static ArgbImage gaussianBlur(ArgbImage image, double sigma) {
+        if (!(sigma > 0) || Double.isInfinite(sigma)) throw new IllegalArgumentException("sigma(" + sigma + ") must be positive and finite");
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int radius = (int) Math.ceil(3 * sigma);
+        double[] kernel = new double[radius * 2 + 1];
+        for (int k = -radius; k <= radius; k++) {
+            kernel[k + radius] = Math.exp(-(k * k) / (2 * sigma * sigma));
+        }
+        int[] pixels = image.getPixels();
+        double[] intensities = new double[width * height];
+        for (int i = 0; i < intensities.length; i++) {
+            intensities[i] = getIntensity(pixels[i]) * 256;
+        }
+        double[] horizontal = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                double weights = 0;
+                for (int x2 = Math.max(x - radius, 0); x2 <= Math.min(x + radius, width - 1); x2++) {
+                    sum += intensities[y * width + x2] * kernel[x2 - x + radius];
+                    weights += kernel[x2 - x + radius];
+                }
+                horizontal[y * width + x] = sum / weights;
+            }
+        }
+        ArgbImage outImage = new ArgbImage(width, height);
+        int[] outPixels = outImage.getPixels();
+        for (int y = 0; y < height; y++) {
+            int y0 = Math.max(y - radius, 0);
+            int y1 = Math.min(y + radius, height - 1);
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                double weights = 0;
+                for (int y2 = y0; y2 <= y1; y2++) {
+                    sum += horizontal[y2 * width + x] * kernel[y2 - y + radius];
+                    weights += kernel[y2 - y + radius];
+                }
+                outPixels[y * width + x] = toGray(Math.min((int) (sum / weights), 255));
+            }
+        }
+        return outImage;
+    }
+
+    static BufferedImage blackOrWhite(BufferedImage image, double intensityThreshold) {
+        return blackOrWhite(ArgbImage.of(image), intensityThreshold).toBufferedImage();
+    }
+
+    static ArgbImage blackOrWhite(ArgbImage image, double intensityThreshold) {
+        int[] pixels = image.getPixels();
+        ArgbImage outImage = new ArgbImage(image.getWidth(), image.getHeight());
+        int[] outPixels = outImage.getPixels();
+        for (int i = 0; i < outPixels.length; i++) {
+            outPixels[i] = getIntensity(pixels[i]) >= intensityThreshold ? 0xFFFFFFFF : 0xFF000000;
+        }
+        return outImage;
+    }
+
+    static BinaryImage binarize(BufferedImage image, double intensityThreshold) {
+        return binarize(ArgbImage.of(image), intensityThreshold);
+    }
+
+    /**
+     * Fused {@link #GRAYSCALE_FILTER} and {@link #blackOrWhite(ArgbImage, double)} in a single pass, straight to a
+     * {@link BinaryImage} where the pixels that would have turned black are filled.
+     * @param image the image to convert
+     * @param intensityThreshold the intensity from 0.0 to 1.0 at which a gray pixel turns white
+     * @return the binary image
+     */
+    static BinaryImage binarize(ArgbImage image, double intensityThreshold) {
+        // Whether each gray level turns black, evaluated exactly as blackOrWhite does on the grayscale pixel
+        boolean[] filledGray = new boolean[256];
+        for (int g = 0; g < filledGray.length; g++) {
+            filledGray[g] = getIntensity(toGray(g)) < intensityThreshold;
+        }
+        int[] pixels = image.getPixels();
+        BinaryImage outImage = new BinaryImage(image.getWidth(), image.getHeight());
+        byte[] data = outImage.getData();
+        for (int i = 0; i < data.length; i++) {
+            if (filledGray[(int) (getIntensity(pixels[i]) * 256)]) {
+                data[i] = 1;
+            }
+        }
+        return outImage;
+    }
+
+    static BufferedImage blackOrWhite(BufferedImage image, ThresholdMode mode, double intensityThreshold) {
+        return binarize(ArgbImage.of(image), mode, intensityThreshold).toBufferedImage();
+    }
+
+    static ArgbImage blackOrWhite(ArgbImage image, ThresholdMode mode, double intensityThreshold) {
+        return binarize(image, mode, intensityThreshold).toArgbImage();
+    }
+
+    static BinaryImage binarize(BufferedImage image, ThresholdMode mode, double intensityThreshold) {
+        return binarize(ArgbImage.of(image), mode, intensityThreshold);
+    }
+
+    /**
+     * Converts the image to a {@link BinaryImage} with the threshold chosen by the mode. All modes work on the gray
+     * levels of {@link #GRAYSCALE_FILTER}.
+     * @param image the image to convert
+     * @param mode the way the threshold is chosen
+     * @param intensityThreshold the threshold used by {@link ThresholdMode#FIXED}, and by {@link ThresholdMode#OTSU}
+     *                           when the image has a single gray level. {@link ThresholdMode#ADAPTIVE} uses it as the
+     *                           fraction of the local mean below which a pixel is filled
+     * @return the binary image
+     */
+    static BinaryImage binarize(ArgbImage image, ThresholdMode mode, double intensityThreshold) {
+        switch (mode) {
+            case FIXED:
+                return binarize(image, intensityThreshold);
+            case OTSU: {
+                int[] grayLevels = getGrayLevels(image);
+                int threshold = getOtsuThreshold(grayLevels);
+                if (threshold < 0) {
+                    return binarize(image, intensityThreshold);
+                }
+                BinaryImage outImage = new BinaryImage(image.getWidth(), image.getHeight());
+                byte[] data = outImage.getData();
+                for (int i = 0; i < data.length; i++) {
+                    if (grayLevels[i] <= threshold) {
+                        data[i] = 1;
+                    }
+                }
+                return outImage;
+            }
+            case ADAPTIVE:
+                return binarizeAdaptive(image, intensityThreshold, Math.max(Math.max(image.getWidth(), image.getHeight()) / (2 * ADAPTIVE_WINDOW_DIVISOR), 1));
+            default:
+                throw new IllegalArgumentException("Unknown threshold mode " + mode);
+        }
+    }
+
+    private static int[] getGrayLevels(ArgbImage image) {
+        int[] pixels = image.getPixels();
+        int[] grayLevels = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            grayLevels[i] = (int) (getIntensity(pixels[i]) * 256);
+        }
+        return grayLevels;
+    }
+
+    /**
+     * Finds the gray level maximizing the between-class variance of the levels up to it and the levels above it.
+     * @param grayLevels the gray level from 0 to 255 of each pixel
+     * @return the highest gray level of the dark class, or -1 if there are less than 2 distinct levels
+     */
+    static int getOtsuThreshold(int[] grayLevels) {
+        long[] histogram = new long[256];
+        long total = 0;
+        double sum = 0;
+        for (int g : grayLevels) {
+            histogram[g]++;
+            total++;
+            sum += g;
+        }
+        int threshold = -1;
+        double maxVariance = 0;
+        long weightDark = 0;
+        double sumDark = 0;
+        for (int t = 0; t < histogram.length; t++) {
+            weightDark += histogram[t];
+            if (weightDark == 0) continue;
+            long weightLight = total - weightDark;
+            if (weightLight == 0) break;
+            sumDark += (double) t * histogram[t];
+            double meanDark = sumDark / weightDark;
+            double meanLight = (sum - sumDark) / weightLight;
+            double variance = (double) weightDark * weightLight * (meanDark - meanLight) * (meanDark - meanLight);
+            if (variance > maxVariance) {
+                maxVariance = variance;
+                threshold = t;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * Fills the pixels whose gray level is below {@code intensityThreshold} times the mean of the surrounding window.
+     * On an evenly lit white background this matches the fixed threshold. The window means come from an integral
+     * image, so the cost per pixel does not depend on the window size.
+     * @param image the image to convert
+     * @param intensityThreshold the fraction of the local mean below which a pixel is filled
+     * @param halfWindow the distance from a pixel to the sides of its window, clipped at the image borders
+     * @return the binary image
+     */
+    static BinaryImage binarizeAdaptive(ArgbImage image, double intensityThreshold, int halfWindow) {
+        if (halfWindow < 1) throw new IllegalArgumentException("halfWindow(" + halfWindow + ") must be at least 1");
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] grayLevels = getGrayLevels(image);
+        long[] table = new long[(width + 1) * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                rowSum += grayLevels[y * width + x];
+                table[(y + 1) * (width + 1) + x + 1] = table[y * (width + 1) + x + 1] + rowSum;
+            }
+        }
+        BinaryImage outImage = new BinaryImage(width, height);
+        byte[] data = outImage.getData();
+        for (int y = 0, i = 0; y < height; y++) {
+            int y0 = Math.max(y - halfWindow, 0);
+            int y1 = Math.min(y + halfWindow, height - 1);
+            for (int x = 0; x < width; x++, i++) {
+                int x0 = Math.max(x - halfWindow, 0);
+                int x1 = Math.min(x + halfWindow, width - 1);
+                long count = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+                if ((double) grayLevels[i] * count < getTableSum(table, width + 1, x0, y0, x1, y1) * intensityThreshold) {
+                    data[i] = 1;
+                }
+            }
+        }
+        return outImage;
+    }
+
+    static BinaryImage thin(BinaryImage image) {
+        return thin(image, false);
+    }
+
+    /**
+     * Thins the strokes of the image down to a skeleton one pixel wide with the Zhang-Suen algorithm. Every pass only
+     * reads the result of the previous one, so the rows of a pass can be processed in parallel.
+     * @param image the image to thin
+     * @param parallel whether to split the rows of each pass between the threads of the common pool
+     * @return the thinned copy of the image
+     */
+    static BinaryImage thin(BinaryImage image, boolean parallel) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BinaryImage outImage = image.copy();
+        byte[] source = outImage.getData();
+        byte[] target = new byte[source.length];
+        boolean firstPass = true;
+        int unchangedPasses = 0;
+        while (unchangedPasses < 2) {
+            byte[] from = source;
+            byte[] to = target;
+            boolean first = firstPass;
+            IntStream rows = IntStream.range(0, height);
+            int removed = (parallel ? rows.parallel() : rows).map(y -> thinRow(from, to, width, height, y, first)).sum();
+            unchangedPasses = removed == 0 ? unchangedPasses + 1 : 0;
+            source = to;
+            target = from;
+            firstPass = !firstPass;
+        }
+        if (source != outImage.getData()) {
+            System.arraycopy(source, 0, outImage.getData(), 0, source.length);
+        }
+        return outImage;
+    }
+
+    private static int thinRow(byte[] source, byte[] target, int width, int height, int y, boolean firstPass) {
+        int removed = 0;
+        for (int x = 0, i = y * width; x < width; x++, i++) {
+            target[i] = source[i];
+            if (source[i] == 0) continue;
+            boolean up = y > 0;
+            boolean down = y < height - 1;
+            boolean left = x > 0;
+            boolean right = x < width - 1;
+            // Neighbors clockwise from the top
+            int p2 = up ? source[i - width] : 0;
+            int p3 = up && right ? source[i - width + 1] : 0;
+            int p4 = right ? source[i + 1] : 0;
+            int p5 = down && right ? source[i + width + 1] : 0;
+            int p6 = down ? source[i + width] : 0;
+            int p7 = down && left ? source[i + width - 1] : 0;
+            int p8 = left ? source[i - 1] : 0;
+            int p9 = up && left ? source[i - width - 1] : 0;
+            int neighbors = p2 + p3 + p4 + p5 + p6 + p7 + p8 + p9;
+            if (neighbors < 2 || neighbors > 6) continue;
+            int transitions = (p2 < p3 ? 1 : 0) + (p3 < p4 ? 1 : 0) + (p4 < p5 ? 1 : 0) + (p5 < p6 ? 1 : 0)
+                    + (p6 < p7 ? 1 : 0) + (p7 < p8 ? 1 : 0) + (p8 < p9 ? 1 : 0) + (p9 < p2 ? 1 : 0);
+            if (transitions != 1) continue;
+            if (firstPass ? p2 * p4 * p6 == 0 && p4 * p6 * p8 == 0 : p2 * p4 * p8 == 0 && p2 * p6 * p8 == 0) {
+                target[i] = 0;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    static BufferedImage add(BufferedImage image1, BufferedImage image2) {
+        return add(ArgbImage.of(image1), ArgbImage.of(image2)).toBufferedImage();
+    }
+
+    static ArgbImage add(ArgbImage image1, ArgbImage image2) {
+        if (image1.getWidth() != image2.getWidth() || image1.getHeight() != image2.getHeight()) throw new IllegalArgumentException("images are different sizes");
+        int[] pixels1 = image1.getPixels();
+        int[] pixels2 = image2.getPixels();
+        ArgbImage outImage = new ArgbImage(image1.getWidth(), image1.getHeight());
+        int[] outPixels = outImage.getPixels();
+        for (int i = 0; i < outPixels.length; i++) {
+            int c1 = pixels1[i];
+            int c2 = pixels2[i];
+            int r = Math.min(((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF), 255);
+            int g = Math.min(((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF), 255);
+            int b = Math.min((c1 & 0xFF) + (c2 & 0xFF), 255);
+            outPixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        return outImage;
+    }
+
+    public enum ThresholdMode {
+        /**
+         * Every pixel is compared to the same given intensity.
+         */
+        FIXED,
+        /**
+         * The global threshold is chosen from the histogram of gray levels with Otsu's method.
+         */
+        OTSU,
+        /**
+         * Every pixel is compared to the mean of its neighbourhood scaled by the threshold, for unevenly lit images.
+         */
+        ADAPTIVE
+    }
+
     @FunctionalInterface
     interface ImageFilter {
         Color filter(BufferedImage image, int x, int y, int size);
+
+        /**
+         * Adapts an {@link IntFilter} to this interface. The pixels of the last image filtered are kept, so the image
+         * is only converted again when another image is passed; an image must not be modified while it is filtered.
+         * {@link #filter(ArgbImage, ImageFilter, int)} runs the adapted filter directly on the packed pixels.
+         */
+        static ImageFilter of(IntFilter filter) {
+            return new IntFilterAdapter(filter);
+        }
+    }
+
+    /**
+     * Filter reading packed {@code 0xAARRGGBB} pixels and returning the packed output pixel, without allocating.
+     */
+    @FunctionalInterface
+    interface IntFilter {
+        int filter(ArgbImage image, int x, int y, int size);
+    }
+
+    private static final class IntFilterAdapter implements ImageFilter {
+        private final IntFilter filter;
+        private volatile Source source;
+
+        IntFilterAdapter(IntFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public Color filter(BufferedImage image, int x, int y, int size) {
+            Source source = this.source;
+            if (source == null || source.image != image) {
+                source = new Source(image);
+                this.source = source;
+            }
+            return new Color(filter.filter(source.pixels, x, y, size), true);
+        }
+
+        private static final class Source {
+            private final BufferedImage image;
+            private final ArgbImage pixels;
+
+            Source(BufferedImage image) {
+                this.image = image;
+                this.pixels = ArgbImage.of(image);
+            }
+        }
     }
 
     static double getIntensity(Color c) {
         return (0.2126 * c.getRed() + 0.7152 * c.getGreen() + 0.0722 * c.getBlue()) / 256.0;
     }
 
-    public static ImageFilter FLIP_FILTER = (image, x, y, size) -> {
-        Color c = new Color(image.getRGB(x, y), false);
-        return new Color(255 - c.getRed(), 255 - c.getGreen(), 255 - c.getBlue());
+    /**
+     * Same as {@link #getIntensity(Color)} for a packed RGB value, ignoring alpha.
+     */
+    static double getIntensity(int rgb) {
+        return (0.2126 * ((rgb >> 16) & 0xFF) + 0.7152 * ((rgb >> 8) & 0xFF) + 0.0722 * (rgb & 0xFF)) / 256.0;
+    }
+
+    /**
+     * Packs an opaque color, with the same range check as {@link Color#Color(int, int, int)}.
+     */
+    static int toRGB(int r, int g, int b) {
+        if (((r | g | b) & ~0xFF) != 0) throw new IllegalArgumentException("r(" + r + "), g(" + g + ") and b(" + b + ") must be in the range [0, 255]");
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    static int toGray(int intensity) {
+        return toRGB(intensity, intensity, intensity);
+    }
+
+    /**
+     * The side of the default adaptive window is the larger side of the image divided by this.
+     */
+    static final int ADAPTIVE_WINDOW_DIVISOR = 8;
+
+    public static final IntFilter FLIP_INT_FILTER = (image, x, y, size) -> {
+        int rgb = image.getRGB(x, y);
+        return toRGB(255 - ((rgb >> 16) & 0xFF), 255 - ((rgb >> 8) & 0xFF), 255 - (rgb & 0xFF));
     };
 
-    public static ImageFilter GRAYSCALE_FILTER = (image, x, y, size) -> {
-        double intensity = getIntensity(new Color(image.getRGB(x, y), false)) * 256;
-        return new Color((int) intensity, (int) intensity, (int) intensity);
+    public static final IntFilter GRAYSCALE_INT_FILTER = (image, x, y, size) -> {
+        double intensity = getIntensity(image.getRGB(x, y)) * 256;
+        return toGray((int) intensity);
     };
 
-    public static ImageFilter BLUR_FILTER = (image, x, y, size) -> {
-        double sum = 0;
+    public static final IntFilter BLUR_INT_FILTER = (image, x, y, size) -> {
+        long sum = 0;
         int count = 0;
         for (int y2 = y - ((size - 1) / 2); y2 <= y + size / 2; y2++) {
             for (int x2 = x - ((size - 1) / 2); x2 <= x + size / 2; x2++) {
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
-                    sum += getIntensity(new Color(image.getRGB(x2, y2), false)) * 256;
+                    sum += getScaledLuminance(image.getRGB(x2, y2));
                     count++;
                 }
             }
         }
-        double intensity = count > 0 ? sum / count : 0;
-        return new Color((int) intensity, (int) intensity, (int) intensity);
+        double intensity = count > 0 ? sum / (10000.0 * count) : 0;
+        return toGray((int) intensity);
     };
 
-    public static ImageFilter BLUR_COLOR_FILTER = (image, x, y, size) -> {
+    public static final IntFilter BLUR_COLOR_INT_FILTER = (image, x, y, size) -> {
         double sumR = 0;
         double sumG = 0;
         double sumB = 0;
@@ -556,9 +1081,10 @@ public class ImageAnalysis {
         for (int y2 = y - ((size - 1) / 2); y2 <= y + size / 2; y2++) {
             for (int x2 = x - ((size - 1) / 2); x2 <= x + size / 2; x2++) {
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
-                    sumR += new Color(image.getRGB(x2, y2), false).getRed();
-                    sumG += new Color(image.getRGB(x2, y2), false).getGreen();
-                    sumB += new Color(image.getRGB(x2, y2), false).getBlue();
+                    int rgb = image.getRGB(x2, y2);
+                    sumR += (rgb >> 16) & 0xFF;
+                    sumG += (rgb >> 8) & 0xFF;
+                    sumB += rgb & 0xFF;
                     count++;
                 }
             }
@@ -566,26 +1092,26 @@ public class ImageAnalysis {
         double intensityR = count > 0 ? sumR / count : 0;
         double intensityG = count > 0 ? sumG / count : 0;
         double intensityB = count > 0 ? sumB / count : 0;
-        return new Color((int) intensityR, (int) intensityG, (int) intensityB);
+        return toRGB((int) intensityR, (int) intensityG, (int) intensityB);
     };
 
-    public static ImageFilter WEIGHTED_BLUR_FILTER = (image, x, y, size) -> {
+    public static final IntFilter WEIGHTED_BLUR_INT_FILTER = (image, x, y, size) -> {
         double sum = 0;
         double count = 0;
         for (int y2 = y - ((size - 1) / 2); y2 <= y + size / 2; y2++) {
             for (int x2 = x - ((size - 1) / 2); x2 <= x + size / 2; x2++) {
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
                     double weight = 1 + Math.sqrt(Math.pow(x2 - x, 2) + Math.pow(y2 - y, 2));
-                    sum += getIntensity(new Color(image.getRGB(x2, y2), false)) * 256 / weight;
+                    sum += getIntensity(image.getRGB(x2, y2)) * 256 / weight;
                     count += 1 / weight;
                 }
             }
         }
         double intensity = count > 0 ? sum / count : 0;
-        return new Color((int) intensity, (int) intensity, (int) intensity);
+        return toGray((int) intensity);
     };
 
-    private static double[] sobelOperator(BufferedImage image, int x, int y) {
+    private static double[] sobelOperator(ArgbImage image, int x, int y) {
         double sumX = 0;
         double sumY = 0;
         double[][] filterX = {
@@ -603,15 +1129,16 @@ public class ImageAnalysis {
                 int x2 = x + x1;
                 int y2 = y + y1;
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
-                    sumX += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterX[y1 + 1][x1 + 1];
-                    sumY += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterY[y1 + 1][x1 + 1];
+                    double intensity = getIntensity(image.getRGB(x2, y2));
+                    sumX += intensity * filterX[y1 + 1][x1 + 1];
+                    sumY += intensity * filterY[y1 + 1][x1 + 1];
                 }
             }
         }
         return new double[] {sumX, sumY};
     }
 
-    public static ImageFilter SOBEL_FILTER = (image, x, y, size) -> {
+    public static final IntFilter SOBEL_INT_FILTER = (image, x, y, size) -> {
         double sumX = 0;
         double sumY = 0;
         double sumXY = 0;
@@ -641,48 +1168,52 @@ public class ImageAnalysis {
                 int x2 = x + x1;
                 int y2 = y + y1;
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
-                    sumX += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterX[y1 + 1][x1 + 1];
-                    sumY += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterY[y1 + 1][x1 + 1];
-                    sumXY += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterXY[y1 + 1][x1 + 1];
-                    sumYX += getIntensity(new Color(image.getRGB(x2, y2), false)) * filterYX[y1 + 1][x1 + 1];
+                    double intensity = getIntensity(image.getRGB(x2, y2));
+                    sumX += intensity * filterX[y1 + 1][x1 + 1];
+                    sumY += intensity * filterY[y1 + 1][x1 + 1];
+                    sumXY += intensity * filterXY[y1 + 1][x1 + 1];
+                    sumYX += intensity * filterYX[y1 + 1][x1 + 1];
                 }
             }
         }
         double intensity1 = Math.sqrt(sumX * sumX + sumY * sumY) / Math.sqrt(32) * 256;
         double intensity2 = Math.sqrt(sumXY * sumXY + sumYX * sumYX) / Math.sqrt(32) * 256;
         double intensity = (intensity1 + intensity2) / 2.0;
-        return new Color((int) intensity, (int) intensity, (int) intensity);
+        return toGray((int) intensity);
     };
 
-    public static ImageFilter GAUSSIAN_FILTER = (image, x, y, size) -> {
+    private static final double[][] GAUSSIAN_KERNEL = {
+            {2, 4, 5, 4, 2},
+            {4, 9, 12, 9, 4},
+            {5, 12, 15, 12, 5},
+            {4, 9, 12, 9, 4},
+            {2, 4, 5, 4, 2}
+    };
+
+    public static final IntFilter GAUSSIAN_INT_FILTER = (image, x, y, size) -> {
         double sum = 0;
-        double[][] filter = {
-                {2, 4, 5, 4, 2},
-                {4, 9, 12, 9, 4},
-                {5, 12, 15, 12, 5},
-                {4, 9, 12, 9, 4},
-                {2, 4, 5, 4, 2}
-        };
         for (int y1 = -2; y1 <= 2; y1++) {
             for (int x1 = -2; x1 <= 2; x1++) {
                 int x2 = x + x1;
                 int y2 = y + y1;
                 if (x2 >= 0 && y2 >= 0 && x2 < image.getWidth() && y2 < image.getHeight()) {
-                    sum += getIntensity(new Color(image.getRGB(x2, y2), false)) * filter[y1 + 2][x1 + 2];
+                    sum += getIntensity(image.getRGB(x2, y2)) * GAUSSIAN_KERNEL[y1 + 2][x1 + 2];
                 }
             }
         }
-        double filterSum = 0;
-        for (double[] row : filter) {
-            for (double col : row) {
-                filterSum += col;
-            }
-        }
         sum /= 159.0;
         sum *= 256.0;
-        return new Color((int) sum, (int) sum, (int) sum);
+        return toGray((int) sum);
     };
 
+    public static final ImageFilter FLIP_FILTER = ImageFilter.of(FLIP_INT_FILTER);
+    public static final ImageFilter GRAYSCALE_FILTER = ImageFilter.of(GRAYSCALE_INT_FILTER);
+    public static final ImageFilter BLUR_FILTER = ImageFilter.of(BLUR_INT_FILTER);
+    public static final ImageFilter BLUR_COLOR_FILTER = ImageFilter.of(BLUR_COLOR_INT_FILTER);
+    public static final ImageFilter WEIGHTED_BLUR_FILTER = ImageFilter.of(WEIGHTED_BLUR_INT_FILTER);
+    public static final ImageFilter SOBEL_FILTER = ImageFilter.of(SOBEL_INT_FILTER);
+    public static final ImageFilter GAUSSIAN_FILTER = ImageFilter.of(GAUSSIAN_INT_FILTER);
+
     static final double[][][] SHARPENING_FILTERS = {
         {
             {-1, -1, -1},
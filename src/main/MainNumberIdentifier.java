@@ -16,11 +16,11 @@ import java.util.*;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 
 public class MainNumberIdentifier {
+    private static final DigitRecognizer RECOGNIZER = new DigitRecognizer(true);
 
     public static void main(String[] args) {
         MainNumberIdentifier.launchGUI();
@@ -247,10 +247,10 @@ public class MainNumberIdentifier {
 
                     JPanel statsTabPaneRow1 = new JPanel();
                     statsTabPaneRow1.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Color.BLACK), "Loops"));
-                    statsTabPaneRow1.add(new JLabel(String.valueOf(result.graphDataSet.getLoops().size())));
+                    statsTabPaneRow1.add(new JLabel(String.valueOf(result.getGraphDataSet().getLoops().size())));
                     JPanel statsTabPaneRow2 = new JPanel();
                     statsTabPaneRow2.setBorder(BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Color.BLACK), "Segments"));
-                    statsTabPaneRow2.add(new JLabel(String.valueOf(result.graphDataSet.getSegments().size())));
+                    statsTabPaneRow2.add(new JLabel(String.valueOf(result.getGraphDataSet().getSegments().size())));
 
                     JPanel statsTabPane = new JPanel();
                     statsTabPane.setLayout(new BoxLayout(statsTabPane, BoxLayout.PAGE_AXIS));
@@ -506,204 +506,10 @@ public class MainNumberIdentifier {
     }
 
     private static AnalysisResult processImage(BufferedImage inputImage, boolean outputFinalImage) throws IOException {
-        Map<Image, String> processImages = new IdentityHashMap<>();
-        processImages.put(inputImage, "01) Original");
-        BufferedImage image2 = ImageAnalysis.blackOrWhite(ImageAnalysis.filter(inputImage, ImageAnalysis.GRAYSCALE_FILTER, 1), 0.7);
-        processImages.put(image2, "02) GrayScale");
-        Predicate<Integer> isFilled = rgb -> (rgb & 0x00FFFFFF) != 0xFFFFFF;
-        BufferedImage image = ImageAnalysis.fillLoops(image2, Color.BLACK, isFilled, s -> s.size() < 0.0001 * image2.getWidth() * image2.getHeight());
-
-        PixelNodeGraph graph = PixelNodeGraph.createGraphFromImage(image, isFilled);
-        graph.replaceRectangles();
-        graph.replaceShortConnectorSegments();
-        processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "03) Nodes Reduction");
-
-        Set<PixelNodeGraph.OpenSegment> segments = graph.getOpenSegments();
-        graph.connectNearbyEnds();
-        processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "04) Segment Connection");
-        if (segments.size() > 2) {
-            // Remove tiny segments that is likely 'noise'
-            double totalSegmentLength = segments.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).sum();
-            double largestSegmentLength = segments.stream().mapToDouble(PixelNodeGraph.OpenSegment::getDistance).max().orElse(0);
-            segments.stream().filter(s -> s.isEdge() && s.getDistance() < totalSegmentLength * 0.025 && s.getDistance() < largestSegmentLength * 0.075).forEach(graph::removeSegment);
-            segments = graph.getOpenSegments();
-            Set<PixelNodeGraph.OpenSegment> removeSegmentsLoops = new HashSet<>();
-            for (PixelNodeGraph.OpenSegment s1 : segments) {
-                removeSegmentsLoops.addAll(segments.stream()
-                        .filter(s2 -> s1 != s2 && s1.getDistance() >= s2.getDistance() && ((s1.getEndNode1() == s2.getEndNode1() && s1.getEndNode2() == s2.getEndNode2()) || (s1.getEndNode1() == s2.getEndNode2() && s1.getEndNode2() == s2.getEndNode1()))
-                                && s2.getDistance() < totalSegmentLength * 0.025 && s2.getDistance() < largestSegmentLength * 0.075)
-                        .collect(Collectors.toSet()));
-            }
-            removeSegmentsLoops.forEach(graph::removeSegment);
-            segments = graph.getOpenSegments();
-        }
-        processImages.put(graph.toImage(inputImage.getWidth(), inputImage.getHeight()), "05) Segment Removal");
-
-        AnalysisResult result = MainNumberIdentifier.analyzeGraph(graph, false, CharacterDigitsPattern.CHARACTERS_DIGITS_SET);
-
-        BufferedImage outputImage = PixelNodeGraph.toImage(segments, image.getWidth(), image.getHeight());
-        processImages.put(outputImage, "06) Segments");
-        if (outputFinalImage) {
-            ImageIO.write(outputImage, "png", new File("Out.png"));
-        }
-
-        for (Image i : processImages.keySet()) {
-            result.addImage(i, processImages.get(i));
+        AnalysisResult result = RECOGNIZER.analyze(inputImage);
+        if (outputFinalImage && result.getSegmentsImage() != null) {
+            ImageIO.write(result.getSegmentsImage(), "png", new File("Out.png"));
         }
         return result;
     }
-
-    private static AnalysisResult analyzeGraph(PixelNodeGraph pixelNodeGraph, boolean write, Collection<? extends BasicCharacterPattern> characterPatterns) {
-        AnalysisResult result = new AnalysisResult(pixelNodeGraph);
-        characterPatterns.forEach(result::addCharacterCertainty);
-        if (write) {
-            for (AnalysisResult.CharacterCertainty c : result.getCharacterCertainties()) {
-                System.out.println(c.toString() + ": " + c.getCertainty());
-            }
-            System.out.println(result.getStandardMessage());
-        }
-        return result;
-    }
-
-    static class AnalysisResult {
-        private final PixelNodeGraph graph;
-        private final BasicCharacterPattern.GraphDataSet graphDataSet;
-        private final List<CharacterCertainty> characterCertainties = new ArrayList<>();
-        private final Map<Image, String> images = new IdentityHashMap<>();
-
-        private AnalysisResult(PixelNodeGraph graph) {
-            this.graph = graph;
-            graphDataSet = new BasicCharacterPattern.GraphDataSet(this.graph);
-        }
-
-        public PixelNodeGraph getGraph() {
-            return graph;
-        }
-
-        public CharacterCertainty getHighestCharacterCertainty() {
-            double maxCertainty = Double.NEGATIVE_INFINITY;
-            CharacterCertainty maxCharacter = null;
-            for (CharacterCertainty c : getCharacterCertainties(null)) {
-                double certainty = c.getCertainty();
-                if (certainty > maxCertainty) {
-                    maxCharacter = c;
-                    maxCertainty = certainty;
-                }
-            }
-            return maxCharacter;
-        }
-
-        public CharacterCertainty[] getCharacterCertainties() {
-            return getCharacterCertainties(CharacterCertainty::compareTo);
-        }
-
-        public CharacterCertainty[] getCharacterCertainties(Comparator<CharacterCertainty> comparator) {
-            CharacterCertainty[] certainties = characterCertainties.toArray(new CharacterCertainty[characterCertainties.size()]);
-            if (comparator != null) {
-                Arrays.sort(certainties, comparator);
-            }
-            return certainties;
-        }
-
-        private Map<Image, String> getImages() {
-            return images;
-        }
-
-        private void addCharacterCertainty(CharacterPattern p) {
-            characterCertainties.add(new CharacterCertainty(p, p.getCertainty(graph)));
-        }
-
-        private void addCharacterCertainty(BasicCharacterPattern p) {
-            characterCertainties.add(new CharacterCertainty(p, p.getCertaintyFactors(graphDataSet)));
-        }
-
-        public void addImage(Image image, String name) {
-            images.put(image, name);
-        }
-
-        public String getStandardMessage() {
-            CharacterCertainty[] certainties = getCharacterCertainties();
-            CharacterCertainty highestConfidence = certainties.length >= 1 ? certainties[0] : null;
-            StringBuilder message = new StringBuilder();
-            if (highestConfidence != null) {
-                if (highestConfidence.getCertainty() > 0.9) {
-                    message.append("Obviously that's ");
-                } else if (highestConfidence.getCertainty() > 0.7) {
-                    message.append("That's ");
-                } else if (highestConfidence.getCertainty() > 0.5) {
-                    message.append("Probably ");
-                } else if (highestConfidence.getCertainty() > 0.2) {
-                    message.append("Guessing that's ");
-                } else {
-                    message.append("Not too sure. Maybe that's ");
-                }
-                message.append(highestConfidence.toString()).append(' ').append(String.format("(%f%%)", highestConfidence.getCertainty() * 100.0));
-                CharacterCertainty secondHighestConfidence = certainties.length >= 2 ? certainties[1] : null;
-                if (secondHighestConfidence != null) {
-                    boolean hasSecondMessage = true;
-                    if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.95) {
-                        message.append(" or ").append(secondHighestConfidence.toString());
-                    } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.85) {
-                        message.append(" or maybe a ").append(secondHighestConfidence.toString());
-                    } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.6) {
-                        message.append(" but also could be a ").append(secondHighestConfidence.toString());
-                    } else if (secondHighestConfidence.getCertainty() / highestConfidence.getCertainty() > 0.35) {
-                        message.append(" with a bit of ").append(secondHighestConfidence.toString()).append(" detected");
-                    } else {
-                        hasSecondMessage = false;
-                    }
-                    if (hasSecondMessage) {
-                        message.append(' ').append(String.format("(%f%%)", secondHighestConfidence.getCertainty() * 100.0));
-                    }
-                }
-            }
-            return message.toString();
-        }
-
-        static class CharacterCertainty implements Comparable<CharacterCertainty> {
-            private final CharacterPattern pattern;
-            private final double certainty;
-            private final BasicCharacterPattern.CertaintyFactor[] factors;
-            CharacterCertainty(CharacterPattern pattern, double certainty) {
-                this(pattern, new BasicCharacterPattern.CertaintyFactor("Certainty", certainty, certainty));
-            }
-            CharacterCertainty(CharacterPattern pattern, BasicCharacterPattern.CertaintyFactor... factors) {
-                if (factors == null || factors.length == 0) throw new IllegalArgumentException("No factors specified");
-                this.pattern = pattern;
-                this.factors = Arrays.copyOf(factors, factors.length);
-                this.certainty = BasicCharacterPattern.getCertainty(this.factors);
-            }
-            public CharacterPattern getPattern() {
-                return pattern;
-            }
-            public double getCertainty() {
-                return certainty;
-            }
-            BasicCharacterPattern.CertaintyFactor[] getFactors() {
-                return factors;
-            }
-            @Override
-            public int compareTo(CharacterCertainty o) {
-                return compareToWithNaN(o.certainty, certainty);
-            }
-            @Override
-            public String toString() {
-                return pattern.toString();
-            }
-
-            public static int compareToWithNaN(double d1, double d2) {
-                boolean n1 = Double.isNaN(d1);
-                boolean n2 = Double.isNaN(d2);
-                if (n1 && n2) {
-                    return 0;
-                } else if (n1) {
-                    return -1;
-                } else if (n2) {
-                    return 1;
-                } else {
-                    return Double.compare(d1, d2);
-                }
-            }
-        }
-    }
 }
@@ -4,6 +4,7 @@ package main;
 import maths.DoubleFunction;
 import maths.Polynomial;
 import maths.PolynomialRegression;
+import maths.PolynomialRegressionAccumulator;
 import maths.RationalPolynomial;
 
 import java.awt.*;
@@ -11,12 +12,24 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 
 public class PixelNodeGraph {
     private final List<PixelNode> nodes = new ArrayList<>();
+    /**
+     * Segments of the graph kept up to date with the changes to the nodes in {@link #changedNodes}, {@code null} until the
+     * segments are first requested.
+     */
+    private SegmentIndex segmentIndex;
+    private final Set<PixelNode> changedNodes = new HashSet<>();
+    private Set<OpenSegment> openSegments;
+    /**
+     * Counts the changes to the nodes, the geometry cached by an {@link OpenSegment} is only valid while it is unchanged.
+     */
+    private int modCount;
 
     public static BufferedImage toImage(Collection<OpenSegment> segments, int width, int height) {
         BufferedImage outImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
@@ -45,10 +58,19 @@ public class PixelNodeGraph {
     }
 
     public static PixelNodeGraph createGraphFromImage(BufferedImage image, Predicate<Integer> isFilled) {
+        return createGraphFromImage(ArgbImage.of(image), isFilled::test);
+    }
+
+    public static PixelNodeGraph createGraphFromImage(ArgbImage image, IntPredicate isFilled) {
+        return createGraphFromImage(BinaryImage.of(image, isFilled));
+    }
+
+    public static PixelNodeGraph createGraphFromImage(BinaryImage image) {
+        byte[] data = image.getData();
         PixelNode[][] nodes = new PixelNode[image.getHeight()][image.getWidth()];
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                if (isFilled.test(image.getRGB(x, y))) {
+        for (int y = 0, i = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++, i++) {
+                if (data[i] != 0) {
                     nodes[y][x] = new PixelNode(x, y);
                     if (x > 0 && nodes[y][x - 1] != null) {
                         PixelNode.connect(nodes[y][x - 1], nodes[y][x]);
@@ -82,65 +104,176 @@ public class PixelNodeGraph {
         for (PixelNode[] row : nodes) {
             for (PixelNode n : row) {
                 if (n != null) {
-                    graph.nodes.add(n);
+                    graph.add(n);
                 }
             }
         }
         return graph;
     }
 
-    private static class PixelNodesRect {
-        private double width;
-        private double height;
-        private Set<PixelNode> nodes;
-        private PixelNodesRect(double width, double height, Set<PixelNode> nodes) {
-            this.width = width;
-            this.height = height;
-            this.nodes = nodes;
+    /**
+     * The nodes of a graph in list order, indexed by slot, with a bucket per pixel for finding the nodes around a
+     * location and a Fenwick tree of the live slots for finding the node at a list position. Nodes added to the front
+     * take the slots before the first node, so slot order stays list order.
+     */
+    private static class NodeGrid {
+        private final PixelNode[] slots;
+        private final int[] liveTree;
+        private int firstSlot;
+        private int size;
+        private final int minX;
+        private final int minY;
+        private final int width;
+        private final int height;
+        private final int[] cells;
+        private final Map<Integer, List<Integer>> extraCells = new HashMap<>();
+
+        private NodeGrid(List<PixelNode> nodes) {
+            // Every replaced rectangle removes at least 4 nodes and adds 1, so the front never needs more slots
+            firstSlot = nodes.size() / 3 + 1;
+            slots = new PixelNode[firstSlot + nodes.size()];
+            liveTree = new int[slots.length + 1];
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (PixelNode n : nodes) {
+                minX = Math.min(minX, n.getLocationX());
+                minY = Math.min(minY, n.getLocationY());
+                maxX = Math.max(maxX, n.getLocationX());
+                maxY = Math.max(maxY, n.getLocationY());
+            }
+            this.minX = (int) Math.floor(minX);
+            this.minY = (int) Math.floor(minY);
+            this.width = (int) Math.floor(maxX) - this.minX + 1;
+            this.height = (int) Math.floor(maxY) - this.minY + 1;
+            this.cells = new int[width * height];
+            for (int i = 0; i < nodes.size(); i++) {
+                add(firstSlot + i, nodes.get(i));
+            }
         }
-    }
 
-    private static class IntegerLocation {
-        private int locationX;
-        private int locationY;
-        private IntegerLocation(int x, int y) {
-            this.locationX = x;
-            this.locationY = y;
+        private int size() {
+            return size;
         }
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
+
+        private PixelNode getNode(int slot) {
+            return slots[slot];
+        }
+
+        /**
+         * @param index the position in the list of nodes
+         * @return the slot of the node at the position
+         */
+        private int getSlot(int index) {
+            int position = 0;
+            int remaining = index + 1;
+            for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+                if (position + step <= slots.length && liveTree[position + step] < remaining) {
+                    position += step;
+                    remaining -= liveTree[position];
+                }
             }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
+            return position;
+        }
+
+        private int addFirst(PixelNode node) {
+            add(--firstSlot, node);
+            return firstSlot;
+        }
+
+        private void add(int slot, PixelNode node) {
+            slots[slot] = node;
+            size++;
+            for (int i = slot + 1; i < liveTree.length; i += i & -i) {
+                liveTree[i]++;
             }
-            IntegerLocation that = (IntegerLocation) o;
-            if (locationX != that.locationX) {
-                return false;
+            int cell = getCell(node);
+            if (cells[cell] == 0) {
+                cells[cell] = slot + 1;
+            } else {
+                extraCells.computeIfAbsent(cell, c -> new ArrayList<>()).add(slot);
             }
-            return locationY == that.locationY;
         }
-        @Override
-        public int hashCode() {
-            int result = locationX;
-            result = 31 * result + locationY;
-            return result;
+
+        private void remove(int slot) {
+            PixelNode node = slots[slot];
+            slots[slot] = null;
+            size--;
+            for (int i = slot + 1; i < liveTree.length; i += i & -i) {
+                liveTree[i]--;
+            }
+            int cell = getCell(node);
+            List<Integer> extra = extraCells.get(cell);
+            if (cells[cell] == slot + 1) {
+                cells[cell] = extra == null ? 0 : extra.remove(extra.size() - 1) + 1;
+            } else if (extra != null) {
+                extra.remove((Integer) slot);
+            }
+            if (extra != null && extra.isEmpty()) {
+                extraCells.remove(cell);
+            }
         }
-    }
 
-    private PixelNodesRect getRect(PixelNode node, double gridWidth, double gridHeight, double offsetX, double offsetY) {
-        double left = node.getLocationX() + offsetX;
-        double top = node.getLocationY() + offsetY;
-        Set<IntegerLocation> nodeGridLocations = new HashSet<>();
-        for (PixelNode n : this.nodes) {
-            double x = n.getLocationX();
-            double y = n.getLocationY();
-            if (x >= left && y >= top) {
-                IntegerLocation location = new IntegerLocation((int) Math.floor((x - left) / gridWidth), (int) Math.floor((y - top) / gridHeight));
-                nodeGridLocations.add(location);
+        private int getCell(PixelNode node) {
+            return ((int) Math.floor(node.getLocationY()) - minY) * width + (int) Math.floor(node.getLocationX()) - minX;
+        }
+
+        /**
+         * Adds the slots of the nodes in the unit cells {@code [0, cellsX) x [0, cellsY)} of the grid starting at
+         * {@code (left, top)}, or only checks whether there are any when {@code out} is {@code null}.
+         */
+        private boolean findNodes(double left, double top, int cellX, int cellY, int cellsX, int cellsY, List<Integer> out) {
+            int x1 = Math.max((int) Math.floor(left + cellX) - 1 - minX, 0);
+            int x2 = Math.min((int) Math.floor(left + cellX + cellsX) + 1 - minX, width - 1);
+            int y1 = Math.max((int) Math.floor(top + cellY) - 1 - minY, 0);
+            int y2 = Math.min((int) Math.floor(top + cellY + cellsY) + 1 - minY, height - 1);
+            for (int y = y1; y <= y2; y++) {
+                for (int x = x1; x <= x2; x++) {
+                    int cell = y * width + x;
+                    if (cells[cell] != 0) {
+                        if (isInCells(cells[cell] - 1, left, top, cellX, cellY, cellsX, cellsY, out)) {
+                            return true;
+                        }
+                        List<Integer> extra = extraCells.get(cell);
+                        if (extra != null) {
+                            for (int slot : extra) {
+                                if (isInCells(slot, left, top, cellX, cellY, cellsX, cellsY, out)) {
+                                    return true;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isInCells(int slot, double left, double top, int cellX, int cellY, int cellsX, int cellsY, List<Integer> out) {
+            PixelNode n = slots[slot];
+            if (n.getLocationX() >= left && n.getLocationY() >= top) {
+                int x = (int) Math.floor(n.getLocationX() - left);
+                int y = (int) Math.floor(n.getLocationY() - top);
+                if (x >= cellX && y >= cellY && x < cellX + cellsX && y < cellY + cellsY) {
+                    if (out == null) {
+                        return true;
+                    }
+                    out.add(slot);
+                }
             }
+            return false;
         }
+    }
+
+    /**
+     * Finds the rectangle of pixel cells to replace from a node, the top left cell being the one of the node. Rows are
+     * added while they are filled from the left of the rectangle, the widest area is kept and then shrunk by one cell
+     * when it is one cell short of the first row or column.
+     * @return the slots of the nodes in the rectangle, in list order, or {@code null} if it is not at least 2x2 cells
+     */
+    private static List<Integer> getRectSlots(NodeGrid grid, PixelNode node) {
+        double left = node.getLocationX() - 0.5;
+        double top = node.getLocationY() - 0.5;
         int largestRectWidth = 0;
         int largestRectHeight = 0;
         int maxRectWidth = 0;
@@ -153,7 +286,7 @@ public class PixelNodeGraph {
                 largestRectHeight = rectHeight;
             }
             for (int x = 0; x < rectWidth; x++) {
-                if (!nodeGridLocations.contains(new IntegerLocation(x, y))) {
+                if (!grid.findNodes(left, top, x, y, 1, 1, null)) {
                     if (y == 0) {
                         maxRectWidth = x;
                     }
@@ -172,15 +305,13 @@ public class PixelNodeGraph {
         if (largestRectHeight == rectHeight - 1) {
             largestRectHeight = rectHeight - 2;
         }
-        Set<PixelNode> nodes = new HashSet<>();
-        for (PixelNode n : this.nodes) {
-            int x = (int) Math.floor((n.getLocationX() - left) / gridWidth);
-            int y = (int) Math.floor((n.getLocationY() - top) / gridHeight);
-            if (x >= 0 && y >= 0 && x < largestRectWidth && y < largestRectHeight) {
-                nodes.add(n);
-            }
+        if (largestRectWidth <= 1 || largestRectHeight <= 1) {
+            return null;
         }
-        return new PixelNodesRect(largestRectWidth, largestRectHeight, nodes);
+        List<Integer> slots = new ArrayList<>();
+        grid.findNodes(left, top, 0, 0, largestRectWidth, largestRectHeight, slots);
+        Collections.sort(slots);
+        return slots;
     }
 
     public Rectangle2D getBoundingRectangle() {
@@ -197,39 +328,70 @@ public class PixelNodeGraph {
         return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
     }
 
+    /**
+     * Replaces every block of at least 2x2 adjacent pixel nodes by a single node at its center.<br>
+     * Nodes are visited in list order and replaced blocks are added to the front of the list; the lookups go through a
+     * grid of the node locations instead of scanning every node for each one.
+     */
     public void replaceRectangles() {
-        for (int i = 0; i < this.nodes.size(); i++) {
-            PixelNode n = this.nodes.get(i);
-            PixelNodesRect rect = getRect(n, 1, 1, -0.5, -0.5);
-            if (rect.width > 1 && rect.height > 1) {
+        if (this.nodes.isEmpty()) {
+            return;
+        }
+        NodeGrid grid = new NodeGrid(this.nodes);
+        Map<PixelNode, Integer> rectSlots = new HashMap<>();
+        for (int i = 0; i < grid.size(); i++) {
+            List<Integer> slots = getRectSlots(grid, grid.getNode(grid.getSlot(i)));
+            if (slots != null) {
+                // Filled in list order so that the center is summed in the same order as a set built from the list
+                Set<PixelNode> rectNodes = new HashSet<>();
+                rectSlots.clear();
+                for (int slot : slots) {
+                    rectNodes.add(grid.getNode(slot));
+                    rectSlots.put(grid.getNode(slot), slot);
+                }
                 double centerX = 0;
                 double centerY = 0;
                 Set<PixelNode> connections = new HashSet<>();
-                for (PixelNode n2 : rect.nodes) {
+                for (PixelNode n2 : rectNodes) {
                     centerX += n2.getLocationX();
                     centerY += n2.getLocationY();
                     connections.addAll(n2.connectedNodes);
-                    remove(n2);
+                    grid.remove(rectSlots.get(n2));
+                    for (PixelNode n : new ArrayList<>(n2.connectedNodes)) {
+                        PixelNode.disconnect(n2, n);
+                    }
                 }
-                i = Math.max(i - rect.nodes.size() + 1, 0);
-                connections.removeAll(rect.nodes);
-                PixelNode newNode = new PixelNode(centerX / rect.nodes.size(), centerY / rect.nodes.size());
+                i = Math.max(i - rectNodes.size() + 1, 0);
+                connections.removeAll(rectNodes);
+                PixelNode newNode = new PixelNode(centerX / rectNodes.size(), centerY / rectNodes.size());
                 for (PixelNode c : connections) {
                     PixelNode.connect(newNode, c);
                 }
-                this.nodes.add(0, newNode);
+                grid.addFirst(newNode);
+            }
+        }
+        for (PixelNode n : this.nodes) {
+            n.graph = null;
+        }
+        this.nodes.clear();
+        clearSegments();
+        for (PixelNode n : grid.slots) {
+            if (n != null) {
+                add(n);
             }
         }
     }
 
-    public void replaceNodes(Collection<PixelNode> nodes) {
+    public PixelNode replaceNodes(Collection<PixelNode> nodes) {
         double centerX = 0;
         double centerY = 0;
         for (PixelNode n2 : nodes) {
             centerX += n2.getLocationX();
             centerY += n2.getLocationY();
         }
-        replaceNodes(nodes, new PixelNode(centerX / nodes.size(), centerY / nodes.size()));
+        PixelNode newNode = new PixelNode(centerX / nodes.size(), centerY / nodes.size());
+        replaceNodes(nodes, newNode);
+        return newNode;
     }
 
     public void replaceNodes(Collection<PixelNode> nodes, PixelNode newNode) {
@@ -243,31 +405,187 @@ public class PixelNodeGraph {
         for (PixelNode c : connections) {
             PixelNode.connect(newNode, c);
         }
-        this.nodes.add(0, newNode);
+        if (newNode.graph != this) {
+            add(0, newNode);
+        }
+    }
+
+    public int replaceShortConnectorSegments() {
+        return replaceShortConnectorSegments(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Merges the short segments between two junctions into single nodes, in rounds until none are left. Every round
+     * merges the connectors found at its start in a fixed order, skipping those next to a connector already merged in
+     * the round, then only the segments touching the merged nodes are traced again.
+     * @param maxRounds the maximum number of rounds
+     * @return the number of rounds performed
+     */
+    public int replaceShortConnectorSegments(int maxRounds) {
+        int rounds = 0;
+        while (rounds < maxRounds) {
+            List<OpenSegment> connectors = getSegmentSnapshot().stream()
+                    .filter(s -> s.getNodeLength() < 5 && s.isConnector())
+                    .sorted(SEGMENT_ORDER)
+                    .collect(Collectors.toList());
+            if (connectors.isEmpty()) {
+                break;
+            }
+            rounds++;
+            // The index is only updated by the next call to getSegmentSnapshot, so it still holds the nodes of every candidate
+            Set<PixelNode> mergedNodes = new HashSet<>();
+            for (OpenSegment s : connectors) {
+                if (!Collections.disjoint(segmentIndex.segmentNodes.get(s), mergedNodes)) {
+                    // Its nodes were changed by an earlier merge, it is traced again for the next round
+                    continue;
+                }
+                LinkedHashSet<PixelNode> nodes = s.getNodes();
+                for (PixelNode n : nodes) {
+                    mergedNodes.addAll(n.connectedNodes);
+                }
+                mergedNodes.addAll(nodes);
+                mergedNodes.add(replaceNodes(nodes));
+            }
+        }
+        return rounds;
     }
 
-    public void replaceShortConnectorSegments() {
-        Set<OpenSegment> allSegments = getOpenSegments();
-        Set<OpenSegment> toRemoveSegments = allSegments.stream()
-                .filter(s -> s.getNodeLength() < 5 && s.isConnector())
-                .collect(Collectors.toSet());
-        if (toRemoveSegments.size() > 0) {
-            for (OpenSegment s : toRemoveSegments) {
-                replaceNodes(s.getNodes());
+    private static final Comparator<OpenSegment> SEGMENT_ORDER = Comparator.comparing(OpenSegment::getEndNode1)
+            .thenComparing(OpenSegment::getEndNode2)
+            .thenComparing(s -> s.endNode1Neighbor, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(s -> s.endNode2Neighbor, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Adds the node if it ends segments, otherwise the nodes ending the segment it lies on.
+     */
+    private static void addSegmentEnds(PixelNode node, Set<PixelNode> ends) {
+        if (node.connectedNodes.size() != 2) {
+            ends.add(node);
+            return;
+        }
+        for (PixelNode first : node.connectedNodes) {
+            PixelNode previous = node;
+            PixelNode current = first;
+            while (current.connectedNodes.size() == 2 && current != node) {
+                PixelNode next = current.getOppositeConnection(previous);
+                previous = current;
+                current = next;
+            }
+            if (current != node) {
+                ends.add(current);
             }
-            replaceShortConnectorSegments();
+        }
+    }
+
+    /**
+     * Open segments of a graph indexed by their end nodes and inner nodes.
+     */
+    private static class SegmentIndex {
+        private final Map<OpenSegment, List<PixelNode>> segmentNodes = new HashMap<>();
+        private final Map<PixelNode, Set<OpenSegment>> nodeSegments = new HashMap<>();
+
+        private void add(OpenSegment segment) {
+            if (!segmentNodes.containsKey(segment)) {
+                List<PixelNode> nodes = new ArrayList<>();
+                nodes.add(segment.getEndNode1());
+                nodes.add(segment.getEndNode2());
+                LinkedHashSet<PixelNode> innerNodes = segment.getInnerNodes();
+                if (innerNodes != null) {
+                    nodes.addAll(innerNodes);
+                }
+                segmentNodes.put(segment, nodes);
+                for (PixelNode n : nodes) {
+                    nodeSegments.computeIfAbsent(n, k -> new HashSet<>()).add(segment);
+                }
+            }
+        }
+
+        /**
+         * Removes the segments ending at or passing through the node.
+         * @return the removed segments
+         */
+        private Set<OpenSegment> removeSegments(PixelNode node) {
+            Set<OpenSegment> removed = nodeSegments.remove(node);
+            if (removed == null) {
+                return Collections.emptySet();
+            }
+            for (OpenSegment s : removed) {
+                for (PixelNode n : segmentNodes.remove(s)) {
+                    Set<OpenSegment> segments = nodeSegments.get(n);
+                    if (segments != null) {
+                        segments.remove(s);
+                        if (segments.isEmpty()) {
+                            nodeSegments.remove(n);
+                        }
+                    }
+                }
+            }
+            return removed;
         }
     }
 
     void connectNearbyEnds() {
-        Set<OpenSegment> allSegments = getOpenSegments();
         Set<PixelNode> endNodes = getVertices(1);
         Rectangle2D boundingRect = getBoundingRectangle();
-        endNodes.forEach(n1 ->
-                endNodes.stream()
-                        .filter(n2 -> !n1.equals(n2) && n1.distanceTo(n2) < Math.min(5, boundingRect.getWidth() * boundingRect.getHeight() * 0.001))
-                        .forEach(n2 -> PixelNode.connect(n1, n2))
-        );
+        double maxDistance = Math.min(5, boundingRect.getWidth() * boundingRect.getHeight() * 0.001);
+        if (endNodes.size() < 2 || !(maxDistance > 0)) {
+            return;
+        }
+        NodeLocator locator = new NodeLocator(endNodes, maxDistance);
+        for (PixelNode n1 : endNodes) {
+            for (PixelNode n2 : locator.getNodesWithin(n1.getLocationX(), n1.getLocationY(), maxDistance)) {
+                if (n1 != n2) {
+                    PixelNode.connect(n1, n2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Uniform grid of square cells over the locations of a set of nodes, for finding the nodes near a location without
+     * testing every node. Queries are cheapest with a radius close to the cell size.
+     */
+    static class NodeLocator {
+        private final double cellSize;
+        private final Map<Long, List<PixelNode>> cells = new HashMap<>();
+
+        NodeLocator(Collection<PixelNode> nodes, double cellSize) {
+            if (!(cellSize > 0)) throw new IllegalArgumentException("cellSize(" + cellSize + ") must be greater than 0");
+            this.cellSize = cellSize;
+            for (PixelNode n : nodes) {
+                cells.computeIfAbsent(getCellKey(getCell(n.getLocationX()), getCell(n.getLocationY())), k -> new ArrayList<>()).add(n);
+            }
+        }
+
+        private long getCell(double location) {
+            return (long) Math.floor(location / cellSize);
+        }
+
+        private static long getCellKey(long cellX, long cellY) {
+            return cellX << 32 ^ (cellY & 0xFFFFFFFFL);
+        }
+
+        /**
+         * @return the nodes closer than {@code radius} to the location
+         */
+        List<PixelNode> getNodesWithin(double x, double y, double radius) {
+            List<PixelNode> found = new ArrayList<>();
+            long maxCellX = getCell(x + radius);
+            long maxCellY = getCell(y + radius);
+            for (long cellY = getCell(y - radius); cellY <= maxCellY; cellY++) {
+                for (long cellX = getCell(x - radius); cellX <= maxCellX; cellX++) {
+                    List<PixelNode> cell = cells.get(getCellKey(cellX, cellY));
+                    if (cell != null) {
+                        for (PixelNode n : cell) {
+                            if (n.distanceTo(x, y) < radius) {
+                                found.add(n);
+                            }
+                        }
+                    }
+                }
+            }
+            return found;
+        }
     }
 
     private Set<OpenSegment> traceSegments(PixelNode endNode1) {
@@ -311,127 +629,303 @@ public class PixelNodeGraph {
         return this.nodes.stream().filter(n -> n.connectedNodes.size() >= connectionsMin && n.connectedNodes.size() <= connectionsMax).collect(Collectors.toSet());
     }
 
-    private static Set<OpenSegment> getConnectedSegments(PixelNode node, Collection<OpenSegment> allSegments) {
-        return allSegments.stream()
-                .filter(s -> node == s.getEndNode1() || node == s.getEndNode2())
-                .collect(Collectors.toSet());
-    }
-
     public Set<Set<OpenSegment>> getLoop(int maxSegmentsInLoop) {
-        return getLoop(maxSegmentsInLoop, getOpenSegments());
+        return getLoop(maxSegmentsInLoop, getSegmentSnapshot());
     }
 
+    /**
+     * Finds the smallest independent loops formed by the segments, which is a minimum cycle basis of the segments
+     * weighted by their distance. Each end node is the root of a tree of shortest paths, and each other segment whose
+     * end nodes are reached through different branches of the tree closes a candidate loop through the root. Candidates
+     * are taken from the shortest, skipping those that are a combination of the loops already taken, until every
+     * independent loop is found. A loop combining smaller loops, such as the outline around two adjacent holes, is not
+     * returned.<br>
+     * Merged junction nodes make the graph cross itself, so the loops can not be found as the faces of a drawing.
+     * @param maxSegmentsInLoop the maximum number of segments in a loop
+     * @param allSegments the segments to search
+     * @return the loops found, each as the set of its segments
+     */
     public Set<Set<OpenSegment>> getLoop(int maxSegmentsInLoop, Set<OpenSegment> allSegments) {
-        Set<Set<OpenSegment>> loops = new HashSet<>();
-        Set<PixelNode> visitedNodes = new HashSet<>();
+        List<OpenSegment> segments = new ArrayList<>();
+        Map<PixelNode, Integer> endNodes = new HashMap<>();
+        List<List<Integer>> nodeSegments = new ArrayList<>();
         for (OpenSegment s : allSegments) {
-            PixelNode root = s.getEndNode1();
-            if (!visitedNodes.contains(root)) {
-                Map<PixelNode, OpenSegment> visited = new HashMap<>();
-                findLoopsDepthFirstSearch(0, maxSegmentsInLoop, root, null, visited, allSegments, loops);
-                visitedNodes.addAll(visited.keySet());
-            }
-        }
-        if (loops.size() <= 1) {
-            return loops;
-        } else {
-            Set<Set<OpenSegment>> innerLoops = new HashSet<>();
-            loops.stream()
-                    .filter(l -> l.size() < allSegments.size())
-                    .forEach(l -> {
-                        Set<Set<OpenSegment>> nestedLoops = getLoop(maxSegmentsInLoop, l);
-                        assert nestedLoops.size() > 0;
-                        if (nestedLoops.size() == 1) {
-                            innerLoops.add(l);
-                        } else {
-                            innerLoops.addAll(nestedLoops);
-                        }
-                    });
-            return innerLoops;
+            if (!s.isSingle()) {
+                for (PixelNode n : new PixelNode[] {s.getEndNode1(), s.getEndNode2()}) {
+                    if (!endNodes.containsKey(n)) {
+                        endNodes.put(n, endNodes.size());
+                        nodeSegments.add(new ArrayList<>());
+                    }
+                }
+                segments.add(s);
+            }
         }
-    }
+        int[] ends1 = new int[segments.size()];
+        int[] ends2 = new int[segments.size()];
+        int[] groups = new int[endNodes.size()];
+        for (int n = 0; n < groups.length; n++) {
+            groups[n] = n;
+        }
+        int groupCount = groups.length;
+        for (int i = 0; i < segments.size(); i++) {
+            ends1[i] = endNodes.get(segments.get(i).getEndNode1());
+            ends2[i] = endNodes.get(segments.get(i).getEndNode2());
+            nodeSegments.get(ends1[i]).add(i);
+            if (ends2[i] != ends1[i]) {
+                nodeSegments.get(ends2[i]).add(i);
+            }
+            int group1 = getGroup(groups, ends1[i]);
+            int group2 = getGroup(groups, ends2[i]);
+            if (group1 != group2) {
+                groups[group1] = group2;
+                groupCount--;
+            }
+        }
+        int independentLoops = segments.size() - groups.length + groupCount;
 
-    private static void findLoopsDepthFirstSearch(int currentSegments, int maxSegmentsInLoop, PixelNode currentNode, OpenSegment previousPath, Map<PixelNode, OpenSegment> visitedNodes, Set<OpenSegment> allSegments, Set<Set<OpenSegment>> loops) {
-        if (visitedNodes.containsKey(currentNode)) {
-            // Find most recent common ancestor node and trace path to get loop
-            List<PixelNode> pathNodes = new ArrayList<>();
-            List<OpenSegment> path = new ArrayList<>();
-            PixelNode traceNode = currentNode;
-            while (traceNode != null) {
-                pathNodes.add(traceNode);
-                OpenSegment segment = visitedNodes.get(traceNode);
-                if (segment == null) {
-                    traceNode = null;
-                } else {
-                    path.add(segment);
-                    traceNode = segment.getEndNode1() == traceNode ? segment.getEndNode2() : segment.getEndNode1();
+        // Segments leading to dead ends are not part of any loop
+        boolean[] deadEnds = new boolean[segments.size()];
+        int[] degrees = new int[groups.length];
+        Deque<Integer> leaves = new ArrayDeque<>();
+        for (int i = 0; i < segments.size(); i++) {
+            degrees[ends1[i]]++;
+            degrees[ends2[i]]++;
+        }
+        for (int n = 0; n < groups.length; n++) {
+            if (degrees[n] == 1) {
+                leaves.add(n);
+            }
+        }
+        while (!leaves.isEmpty()) {
+            int n = leaves.poll();
+            for (int i : nodeSegments.get(n)) {
+                if (!deadEnds[i]) {
+                    deadEnds[i] = true;
+                    degrees[ends1[i]]--;
+                    degrees[ends2[i]]--;
+                    int next = ends1[i] == n ? ends2[i] : ends1[i];
+                    if (degrees[next] == 1) {
+                        leaves.add(next);
+                    }
                 }
             }
+        }
 
-            if (currentNode == previousPath.getEndNode1()) {
-                currentNode = previousPath.getEndNode2();
-            } else {
-                currentNode = previousPath.getEndNode1();
-            }
-            List<OpenSegment> path2 = new ArrayList<>();
-            while (!pathNodes.contains(currentNode)) {
-                OpenSegment segment = visitedNodes.get(currentNode);
-                if (segment == null) {
-                    // No common ancestor node
-                    return;
-                } else {
-                    path2.add(segment);
-                    currentNode = segment.getEndNode1() == currentNode ? segment.getEndNode2() : segment.getEndNode1();
+        // Every loop of a minimum basis is closed from any of its nodes, so nodes between only 2 segments of loops are
+        // only needed as roots of loops that do not pass any other node
+        boolean[] roots = new boolean[groups.length];
+        Map<Integer, Integer> ringRoots = new HashMap<>();
+        for (int n = 0; n < groups.length; n++) {
+            if (degrees[n] > 2) {
+                roots[n] = true;
+                ringRoots.put(getGroup(groups, n), -1);
+            }
+        }
+        for (int n = 0; n < groups.length; n++) {
+            if (degrees[n] == 2 && ringRoots.putIfAbsent(getGroup(groups, n), n) == null) {
+                roots[n] = true;
+            }
+        }
+
+        Map<BitSet, Double> candidates = new HashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            if (ends1[i] == ends2[i]) {
+                BitSet loop = new BitSet(segments.size());
+                loop.set(i);
+                candidates.put(loop, segments.get(i).getDistance());
+            }
+        }
+        // The same loop is closed from each root on it, so the paths from a root avoid the roots before it
+        double[] distances = new double[groups.length];
+        int[] treeSegments = new int[groups.length];
+        int[] branches = new int[groups.length];
+        for (int root = 0; root < groups.length; root++) {
+            if (!roots[root]) {
+                continue;
+            }
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            Arrays.fill(treeSegments, -1);
+            distances[root] = 0;
+            branches[root] = -1;
+            PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+            queue.add(new double[] {0, root});
+            while (!queue.isEmpty()) {
+                double[] entry = queue.poll();
+                int n = (int) entry[1];
+                if (entry[0] > distances[n]) {
+                    continue;
+                }
+                for (int i : nodeSegments.get(n)) {
+                    int next = ends1[i] == n ? ends2[i] : ends1[i];
+                    if (deadEnds[i] || (roots[next] && next < root)) {
+                        continue;
+                    }
+                    double distance = distances[n] + segments.get(i).getDistance();
+                    if (distance < distances[next]) {
+                        distances[next] = distance;
+                        treeSegments[next] = i;
+                        branches[next] = n == root ? next : branches[n];
+                        queue.add(new double[] {distance, next});
+                    }
                 }
             }
-            Set<OpenSegment> loop = new HashSet<>();
-            loop.addAll(path2);
-            for (int i = 0; i < pathNodes.size() && pathNodes.get(i) != currentNode; i++) {
-                loop.add(path.get(i));
-            }
-            loop.add(previousPath);
-            loops.add(loop);
-        } else if (currentSegments < maxSegmentsInLoop) {
-            visitedNodes.put(currentNode, previousPath);
-            Set<OpenSegment> connections = getConnectedSegments(currentNode, allSegments);
-            for (OpenSegment s : connections) {
-                if (s != previousPath) {
-                    PixelNode connectedNode = s.getEndNode1();
-                    if (connectedNode == currentNode) {
-                        connectedNode = s.getEndNode2();
+            for (int i = 0; i < segments.size(); i++) {
+                int end1 = ends1[i];
+                int end2 = ends2[i];
+                if (!deadEnds[i] && end1 != end2 && treeSegments[end1] != i && treeSegments[end2] != i
+                        && distances[end1] < Double.POSITIVE_INFINITY && distances[end2] < Double.POSITIVE_INFINITY && branches[end1] != branches[end2]) {
+                    BitSet loop = new BitSet(segments.size());
+                    loop.set(i);
+                    for (int n : new int[] {end1, end2}) {
+                        while (n != root) {
+                            loop.set(treeSegments[n]);
+                            n = ends1[treeSegments[n]] == n ? ends2[treeSegments[n]] : ends1[treeSegments[n]];
+                        }
+                    }
+                    if (loop.cardinality() <= maxSegmentsInLoop) {
+                        candidates.put(loop, distances[end1] + distances[end2] + segments.get(i).getDistance());
                     }
-                    findLoopsDepthFirstSearch(currentSegments + 1, maxSegmentsInLoop, connectedNode, s, visitedNodes, allSegments, loops);
                 }
             }
         }
+
+        List<Map.Entry<BitSet, Double>> sortedCandidates = new ArrayList<>(candidates.entrySet());
+        sortedCandidates.sort(Map.Entry.comparingByValue());
+        // Loops reduced to their highest segment, a candidate is independent if it does not reduce to nothing
+        Map<Integer, BitSet> reducedLoops = new HashMap<>();
+        Set<Set<OpenSegment>> loops = new HashSet<>();
+        for (Map.Entry<BitSet, Double> entry : sortedCandidates) {
+            if (loops.size() == independentLoops) {
+                break;
+            }
+            BitSet candidate = entry.getKey();
+            BitSet reduced = (BitSet) candidate.clone();
+            while (!reduced.isEmpty()) {
+                BitSet reducedLoop = reducedLoops.get(reduced.length() - 1);
+                if (reducedLoop == null) {
+                    reducedLoops.put(reduced.length() - 1, reduced);
+                    Set<OpenSegment> loop = new HashSet<>();
+                    candidate.stream().forEach(i -> loop.add(segments.get(i)));
+                    loops.add(loop);
+                    break;
+                }
+                reduced.xor(reducedLoop);
+            }
+        }
+        return loops;
     }
 
+    private static int getGroup(int[] groups, int node) {
+        while (groups[node] != node) {
+            groups[node] = groups[groups[node]];
+            node = groups[node];
+        }
+        return node;
+    }
+
+    /**
+     * Gets the segments of the graph. The segments are traced once and then kept up to date as nodes are added, removed,
+     * connected or disconnected, only the segments touching the changed nodes are traced again.<br>
+     * If no node ends a segment, every node being part of a loop, each loop is traced from one of its nodes instead.
+     * @return a new set of the current segments
+     */
     public Set<OpenSegment> getOpenSegments() {
-        Set<OpenSegment> segments = new HashSet<>();
-        for (PixelNode n : this.nodes) {
+        return new HashSet<>(getSegmentSnapshot());
+    }
+
+    /**
+     * @return an unmodifiable snapshot of the current segments, shared until the graph is changed
+     */
+    private Set<OpenSegment> getSegmentSnapshot() {
+        if (segmentIndex == null) {
+            segmentIndex = new SegmentIndex();
+            for (PixelNode n : this.nodes) {
+                if (n.connectedNodes.size() == 0) {
+                    segmentIndex.add(new OpenSegment(n));
+                } else if (n.connectedNodes.size() != 2) {
+                    traceSegments(n).forEach(segmentIndex::add);
+                }
+            }
+            changedNodes.clear();
+            openSegments = null;
+        } else if (!changedNodes.isEmpty()) {
+            updateSegments();
+            openSegments = null;
+        }
+        if (openSegments == null) {
+            Set<OpenSegment> segments = new HashSet<>(segmentIndex.segmentNodes.keySet());
+            if (segments.size() == 0) {
+                Set<PixelNode> usedNodes = new HashSet<>();
+                this.nodes.forEach(n -> {
+                    if (!usedNodes.contains(n)) {
+                        Set<OpenSegment> newSegments = traceSegments(n);
+                        segments.addAll(newSegments);
+                        for (OpenSegment s : newSegments) {
+                            usedNodes.addAll(s.getNodes());
+                        }
+                    }
+                });
+            }
+            openSegments = Collections.unmodifiableSet(segments);
+        }
+        return openSegments;
+    }
+
+    /**
+     * Replaces the indexed segments touching a changed node by the segments now ending at the same nodes.
+     */
+    private void updateSegments() {
+        Set<PixelNode> ends = new HashSet<>();
+        for (PixelNode n : changedNodes) {
+            for (OpenSegment s : segmentIndex.removeSegments(n)) {
+                ends.add(s.getEndNode1());
+                ends.add(s.getEndNode2());
+            }
+            if (n.graph == this) {
+                addSegmentEnds(n, ends);
+            }
+        }
+        changedNodes.clear();
+        for (PixelNode n : ends) {
+            if (n.graph != this) {
+                continue;
+            }
             if (n.connectedNodes.size() == 0) {
-                segments.add(new OpenSegment(n));
+                segmentIndex.add(new OpenSegment(n));
             } else if (n.connectedNodes.size() != 2) {
-                segments.addAll(traceSegments(n));
+                traceSegments(n).forEach(segmentIndex::add);
             }
         }
-        if (segments.size() == 0) {
-            Set<PixelNode> usedNodes = new HashSet<>();
-            this.nodes.forEach(n -> {
-                if (!usedNodes.contains(n)) {
-                    Set<OpenSegment> newSegments = traceSegments(n);
-                    segments.addAll(newSegments);
-                    for (OpenSegment s : newSegments) {
-                        usedNodes.addAll(s.getNodes());
-                    }
-                }
-            });
+    }
+
+    private void clearSegments() {
+        segmentIndex = null;
+        changedNodes.clear();
+        openSegments = null;
+    }
+
+    private void nodeChanged(PixelNode node) {
+        modCount++;
+        if (segmentIndex != null) {
+            changedNodes.add(node);
         }
-        return segments;
+    }
+
+    void add(PixelNode node) {
+        add(this.nodes.size(), node);
+    }
+
+    private void add(int index, PixelNode node) {
+        if (node.graph != null) throw new IllegalArgumentException("node(" + node + ") is already part of a graph");
+        this.nodes.add(index, node);
+        node.graph = this;
+        nodeChanged(node);
     }
 
     public void remove(PixelNode node) {
-        if (this.nodes.remove(node)) {
+        if (node.graph == this && this.nodes.remove(node)) {
+            node.graph = null;
+            nodeChanged(node);
             for (PixelNode n : new ArrayList<>(node.connectedNodes)) {
                 PixelNode.disconnect(node, n);
             }
@@ -445,8 +939,11 @@ public class PixelNodeGraph {
         }
     }
 
+    /**
+     * @return an unmodifiable view of the nodes, use {@link #remove(PixelNode)} and {@link #replaceNodes(Collection)} to change them
+     */
     public List<PixelNode> getNodes() {
-        return this.nodes;
+        return Collections.unmodifiableList(this.nodes);
     }
 
     @Override
@@ -460,6 +957,7 @@ public class PixelNodeGraph {
         private final double locationX;
         private final double locationY;
         private final Set<PixelNode> connectedNodes = new HashSet<>();
+        private PixelNodeGraph graph;
 
         PixelNode(double x, double y) {
             this.locationX = x;
@@ -554,15 +1052,25 @@ public class PixelNodeGraph {
         }
 
         public static void connect(PixelNode node1, PixelNode node2) {
-            if (node1 != null && node2 != null && node1 != node2) {
-                node1.connectedNodes.add(node2);
+            if (node1 != null && node2 != null && node1 != node2 && node1.connectedNodes.add(node2)) {
                 node2.connectedNodes.add(node1);
+                node1.connectionsChanged();
+                node2.connectionsChanged();
             }
         }
 
         public static void disconnect(PixelNode node1, PixelNode node2) {
-            node1.connectedNodes.remove(node2);
-            node2.connectedNodes.remove(node1);
+            if (node1.connectedNodes.remove(node2)) {
+                node2.connectedNodes.remove(node1);
+                node1.connectionsChanged();
+                node2.connectionsChanged();
+            }
+        }
+
+        private void connectionsChanged() {
+            if (graph != null) {
+                graph.nodeChanged(this);
+            }
         }
 
         private static Collection<PixelNode> copyNodes(Collection<PixelNode> nodes) {
@@ -615,12 +1123,32 @@ public class PixelNodeGraph {
      * a single node with 0 connections.
      */
     public static class OpenSegment {
+        /**
+         * The degree up to which the regression sums are kept, which covers the regressions of the digit patterns.
+         */
+        private static final int REGRESSION_MAX_DEGREE = 5;
         private PixelNode endNode1;
         private PixelNode endNode2;
         private PixelNode endNode1Neighbor;
         private PixelNode endNode2Neighbor;
         private final int length;
         private final double distance;
+        private PixelNodeGraph cacheGraph;
+        private int cacheModCount;
+        private PixelNode[] innerNodesCache;
+        private PixelNode[] nodesCache;
+        private double[] arcLengthsCache;
+        private final Map<Integer, PolynomialRegression[]> regressionsCache = new HashMap<>();
+        /**
+         * Sums of the x and y-coordinates against the distance along the segment of the nodes from {@link #accumulatedStart}
+         * up to {@link #accumulatedEnd}, moved to each requested interval within the nodes the sums were scaled to.
+         */
+        private PolynomialRegressionAccumulator[] regressionAccumulators;
+        private int accumulatedStart;
+        private int accumulatedEnd;
+        private int accumulatorRangeStart;
+        private int accumulatorRangeEnd;
+        private Double curvature3Mod;
 
         public OpenSegment(PixelNode endNode) {
             this(endNode, endNode, 0, 0, null, null);
@@ -696,7 +1224,32 @@ public class PixelNodeGraph {
         }
 
         public LinkedHashSet<PixelNode> getInnerNodes() {
-            return getInnerNodes(0);
+            validateCache();
+            if (innerNodesCache == null) {
+                LinkedHashSet<PixelNode> innerNodes = getInnerNodes(0);
+                if (innerNodes == null) {
+                    return null;
+                }
+                innerNodesCache = innerNodes.toArray(new PixelNode[0]);
+            }
+            return new LinkedHashSet<>(Arrays.asList(innerNodesCache));
+        }
+
+        /**
+         * Drops the cached geometry when the graph of the segment has changed since it was computed. Segments of nodes
+         * outside a graph are never cached, their connections are not tracked.
+         */
+        private void validateCache() {
+            PixelNodeGraph graph = this.endNode1.graph;
+            if (graph == null || graph != cacheGraph || graph.modCount != cacheModCount) {
+                innerNodesCache = null;
+                nodesCache = null;
+                arcLengthsCache = null;
+                regressionsCache.clear();
+                regressionAccumulators = null;
+                cacheGraph = graph;
+                cacheModCount = graph == null ? 0 : graph.modCount;
+            }
         }
 
         public LinkedHashSet<PixelNode> getInnerNodes(int skip) {
@@ -770,7 +1323,33 @@ public class PixelNodeGraph {
         }
 
         public LinkedHashSet<PixelNode> getNodes() {
-            return getNodes(null);
+            return new LinkedHashSet<>(Arrays.asList(getNodeArray()));
+        }
+
+        /**
+         * @return the nodes in the order of {@link #getNodes()}, shared between calls and not to be modified
+         */
+        private PixelNode[] getNodeArray() {
+            validateCache();
+            if (nodesCache == null) {
+                nodesCache = getNodes(null).toArray(new PixelNode[0]);
+            }
+            return nodesCache;
+        }
+
+        /**
+         * @return the distance along the segment to each node of {@link #getNodeArray()}, shared between calls and not to be modified
+         */
+        private double[] getArcLengths() {
+            PixelNode[] nodes = getNodeArray();
+            if (arcLengthsCache == null) {
+                double[] arcLengths = new double[nodes.length];
+                for (int i = 1; i < nodes.length; i++) {
+                    arcLengths[i] = arcLengths[i - 1] + nodes[i - 1].distanceTo(nodes[i]);
+                }
+                arcLengthsCache = arcLengths;
+            }
+            return arcLengthsCache;
         }
 
         public LinkedHashSet<PixelNode> getNodes(Integer skip) {
@@ -859,7 +1438,13 @@ public class PixelNodeGraph {
         }
 
         public PolynomialRegression[] getRegressionCurves(int degrees) {
-            return getRegressionCurves(degrees, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            getNodeArray();
+            PolynomialRegression[] regressions = regressionsCache.get(degrees);
+            if (regressions == null) {
+                regressions = getRegressionCurves(degrees, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                regressionsCache.put(degrees, regressions);
+            }
+            return regressions.clone();
         }
 
         /**
@@ -870,30 +1455,87 @@ public class PixelNodeGraph {
          * @return an array of size 2 with the x-coordinate regression at index 0 and y-coordinate regression at index 1
          */
         public PolynomialRegression[] getRegressionCurves(int degrees, double distanceMin, double distanceMax) {
-            List<Double> distance = new ArrayList<>();
-            List<Double> xCoordinates = new ArrayList<>();
-            List<Double> yCoordinates = new ArrayList<>();
-            double currentDistance = 0;
-            PixelNodeGraph.PixelNode previousNode = null;
-            for (PixelNodeGraph.PixelNode n : getNodes()) {
-                if (previousNode != null) {
-                    currentDistance += previousNode.distanceTo(n);
-                }
-                if (currentDistance > distanceMax) {
-                    break;
-                } else if (distanceMin <= currentDistance) {
-                    distance.add(currentDistance);
-                    xCoordinates.add(n.getLocationX());
-                    yCoordinates.add(n.getLocationY());
-                }
-                previousNode = n;
+            if (degrees < 0) throw new IllegalArgumentException("degree(" + degrees + ") cannot be less than 0");
+            PixelNode[] nodes = getNodeArray();
+            double[] arcLengths = getArcLengths();
+            int start = 0;
+            while (start < nodes.length && !(distanceMin <= arcLengths[start]) && !(arcLengths[start] > distanceMax)) {
+                start++;
             }
+            int end = start;
+            while (end < nodes.length && !(arcLengths[end] > distanceMax)) {
+                end++;
+            }
+            accumulateNodes(degrees, start, end);
             return new PolynomialRegression[] {
-                    new PolynomialRegression(distance, xCoordinates, degrees),
-                    new PolynomialRegression(distance, yCoordinates, degrees)
+                    getRegression(0, degrees, start, end),
+                    getRegression(1, degrees, start, end)
             };
         }
 
+        /**
+         * Moves the regression sums to the nodes from start up to end, by adding and removing the nodes at the ends of the
+         * interval when that is cheaper than summing the interval again.<br>
+         * The sums are only moved within the nodes they were scaled to and while the interval covers at least half of them,
+         * smaller intervals would be fitted with too few significant digits.
+         */
+        private void accumulateNodes(int degrees, int start, int end) {
+            PixelNode[] nodes = getNodeArray();
+            double[] arcLengths = getArcLengths();
+            if (regressionAccumulators == null || regressionAccumulators[0].getMaxDegree() < degrees
+                    || start < accumulatorRangeStart || end > accumulatorRangeEnd || start >= end
+                    || (arcLengths[end - 1] - arcLengths[start]) * 2 < arcLengths[accumulatorRangeEnd - 1] - arcLengths[accumulatorRangeStart]
+                    || Math.abs(start - accumulatedStart) + Math.abs(end - accumulatedEnd) >= end - start) {
+                int maxDegree = Math.max(degrees, REGRESSION_MAX_DEGREE);
+                double min = start < end ? arcLengths[start] : 0;
+                double max = start < end ? arcLengths[end - 1] : 0;
+                regressionAccumulators = new PolynomialRegressionAccumulator[] {
+                        new PolynomialRegressionAccumulator(maxDegree, min, max),
+                        new PolynomialRegressionAccumulator(maxDegree, min, max)
+                };
+                accumulatedStart = start;
+                accumulatedEnd = start;
+                accumulatorRangeStart = start;
+                accumulatorRangeEnd = end;
+            }
+            // Add before removing so that the sums are never emptied on the way
+            for (int i = start; i < accumulatedStart; i++) {
+                regressionAccumulators[0].add(arcLengths[i], nodes[i].getLocationX());
+                regressionAccumulators[1].add(arcLengths[i], nodes[i].getLocationY());
+            }
+            for (int i = accumulatedEnd; i < end; i++) {
+                regressionAccumulators[0].add(arcLengths[i], nodes[i].getLocationX());
+                regressionAccumulators[1].add(arcLengths[i], nodes[i].getLocationY());
+            }
+            for (int i = accumulatedStart; i < start; i++) {
+                regressionAccumulators[0].remove(arcLengths[i], nodes[i].getLocationX());
+                regressionAccumulators[1].remove(arcLengths[i], nodes[i].getLocationY());
+            }
+            for (int i = end; i < accumulatedEnd; i++) {
+                regressionAccumulators[0].remove(arcLengths[i], nodes[i].getLocationX());
+                regressionAccumulators[1].remove(arcLengths[i], nodes[i].getLocationY());
+            }
+            accumulatedStart = start;
+            accumulatedEnd = end;
+        }
+
+        /**
+         * Fits the accumulated nodes, or the nodes themselves when the sums do not determine a polynomial of the degree.
+         * @param coordinate 0 for the x-coordinates, 1 for the y-coordinates
+         */
+        private PolynomialRegression getRegression(int coordinate, int degrees, int start, int end) {
+            PolynomialRegression regression = regressionAccumulators[coordinate].getRegression(degrees);
+            if (regression == null) {
+                PixelNode[] nodes = getNodeArray();
+                double[] coordinates = new double[end - start];
+                for (int i = start; i < end; i++) {
+                    coordinates[i - start] = coordinate == 0 ? nodes[i].getLocationX() : nodes[i].getLocationY();
+                }
+                regression = new PolynomialRegression(Arrays.copyOfRange(getArcLengths(), start, end), coordinates, degrees);
+            }
+            return regression;
+        }
+
         static RationalPolynomial getRegressionCurvesDerivative(Polynomial x, Polynomial y) {
             return new RationalPolynomial(y.differentiate(), x.differentiate());
         }
@@ -908,20 +1550,42 @@ public class PixelNodeGraph {
         }
 
         static DoubleFunction getCurvatureFunction(Polynomial x, Polynomial y) {
-            return new DoubleFunction() {
-                Polynomial xDerivative1 = x.differentiate();
-                Polynomial xDerivative2 = xDerivative1.differentiate();
-                Polynomial yDerivative1 = y.differentiate();
-                Polynomial yDerivative2 = yDerivative1.differentiate();
-                @Override
-                public double evaluate(double x) {
-                    double xD1 = xDerivative1.evaluate(x);
-                    double xD2 = xDerivative2.evaluate(x);
-                    double yD1 = yDerivative1.evaluate(x);
-                    double yD2 = yDerivative2.evaluate(x);
-                    return (xD1 * yD2 - xD2 * yD1) / Math.pow(xD1 * xD1 + yD1 * yD1, 1.5);
+            return new CurvatureFunction(x, y);
+        }
+
+        /**
+         * Curvature of the parametric curve (x(t), y(t)), evaluating the derivatives into buffers it owns so that no
+         * evaluation allocates. An instance must therefore not be evaluated from several threads at once.
+         */
+        private static final class CurvatureFunction implements DoubleFunction {
+            private final Polynomial x;
+            private final Polynomial y;
+            private final double[] xDerivatives = new double[3];
+            private final double[] yDerivatives = new double[3];
+
+            CurvatureFunction(Polynomial x, Polynomial y) {
+                this.x = x;
+                this.y = y;
+            }
+
+            @Override
+            public double evaluate(double t) {
+                x.evaluateDerivatives(t, xDerivatives);
+                y.evaluateDerivatives(t, yDerivatives);
+                double xD1 = xDerivatives[1];
+                double xD2 = xDerivatives[2];
+                double yD1 = yDerivatives[1];
+                double yD2 = yDerivatives[2];
+                return (xD1 * yD2 - xD2 * yD1) / Math.pow(xD1 * xD1 + yD1 * yD1, 1.5);
+            }
+
+            @Override
+            public void evaluate(double[] ts, double[] out) {
+                if (out.length < ts.length) throw new IllegalArgumentException("out length(" + out.length + ") cannot be less than ts length(" + ts.length + ")");
+                for (int i = 0; i < ts.length; i++) {
+                    out[i] = evaluate(ts[i]);
                 }
-            };
+            }
         }
 
         /**
@@ -981,7 +1645,7 @@ public class PixelNodeGraph {
         }
 
         public double getMean(double direction) {
-            return getMean(getNodes(), direction);
+            return getMean(Arrays.asList(getNodeArray()), direction);
         }
 
         /**
@@ -1005,7 +1669,7 @@ public class PixelNodeGraph {
         }
 
         public double getDeviation(double direction) {
-            return getDeviation(getNodes(), direction);
+            return getDeviation(Arrays.asList(getNodeArray()), direction);
         }
 
         /**
@@ -1029,7 +1693,7 @@ public class PixelNodeGraph {
         }
 
         public double getSkewness(double direction) {
-            return getSkewness(getNodes(), direction);
+            return getSkewness(Arrays.asList(getNodeArray()), direction);
         }
 
         /**
@@ -1040,7 +1704,7 @@ public class PixelNodeGraph {
             double curvature = 0;
             PixelNode previous = null;
             Double previousAngle = null;
-            for (PixelNode n : getNodes()) {
+            for (PixelNode n : getNodeArray()) {
                 if (previous != null) {
                     double angle = Math.atan((n.getLocationY() - previous.getLocationY()) / (n.getLocationX() - previous.getLocationX()));
                     if (previousAngle != null) {
@@ -1077,9 +1741,13 @@ public class PixelNodeGraph {
          * @return a relative value representing the curvature
          */
         public double getCurvature3Mod() {
-            double distance = getDistance();
-            double endNodeDistance = getEndNode1().distanceTo(getEndNode2());
-            return getCurvature3Mod(endNodeDistance, distance);
+            // Only depends on the distance and the end nodes, which do not change with the graph
+            if (curvature3Mod == null) {
+                double distance = getDistance();
+                double endNodeDistance = getEndNode1().distanceTo(getEndNode2());
+                curvature3Mod = getCurvature3Mod(endNodeDistance, distance);
+            }
+            return curvature3Mod;
         }
 
         public static double getCurvature3Mod(double directDistance, double curveDistance) {
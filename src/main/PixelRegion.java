@@ -0,0 +1,89 @@
+package main;
+
+/**
+ * Size and bounding box of a connected region of pixels, as found by
+ * {@link ImageAnalysis#labelRegions(BinaryImage, boolean, boolean, int[])} and
+ * {@link ImageAnalysis#labelComponents(BinaryImage, boolean, int[])}.
+ */
+public class PixelRegion {
+    private final int label;
+    private int area;
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    private boolean touchesBorder;
+    private int holes;
+
+    PixelRegion(int label) {
+        this.label = label;
+    }
+
+    void addSpan(int y, int x1, int x2, boolean touchesBorder) {
+        area += x2 - x1 + 1;
+        minX = Math.min(minX, x1);
+        maxX = Math.max(maxX, x2);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        this.touchesBorder |= touchesBorder;
+    }
+
+    void addHole() {
+        holes++;
+    }
+
+    /**
+     * @return the value of the pixels of this region in the label array, starting from 1
+     */
+    public int getLabel() {
+        return label;
+    }
+
+    public int getArea() {
+        return area;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    public int getWidth() {
+        return maxX - minX + 1;
+    }
+
+    public int getHeight() {
+        return maxY - minY + 1;
+    }
+
+    /**
+     * @return whether a pixel of the region lies on the edge of the image, meaning the region is not enclosed
+     */
+    public boolean isTouchingBorder() {
+        return touchesBorder;
+    }
+
+    /**
+     * @return the number of enclosed background regions inside this region, only counted by
+     * {@link ImageAnalysis#labelComponents(BinaryImage, boolean, int[])}
+     */
+    public int getHoleCount() {
+        return holes;
+    }
+
+    @Override
+    public String toString() {
+        return "PixelRegion{label=" + label + ", area=" + area + ", bounds=[" + minX + ", " + minY + ", " + maxX + ", " + maxY + "]" + (holes > 0 ? ", holes=" + holes : "") + (touchesBorder ? ", border" : "") + "}";
+    }
+}
@@ -14,6 +14,39 @@ public interface DoubleFunction extends Function<Double, Double> {
         return evaluate(x);
     }
 
+    /**
+     * Evaluates the function at each of the values
+     * @param xs the values to evaluate at
+     * @param out receives the value of the function at each of the values, at least as long as {@code xs}
+     */
+    default void evaluate(double[] xs, double[] out) {
+        if (out.length < xs.length) throw new IllegalArgumentException("out length(" + out.length + ") cannot be less than xs length(" + xs.length + ")");
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = evaluate(xs[i]);
+        }
+    }
+
+    /**
+     * Evaluates the function at n + 1 evenly spaced values from x1 to x2, without boxing when the function is a {@link DoubleFunction}
+     * @return the values of the function, the value at x1 first
+     */
+    static double[] sample(Function<Double, Double> function, double x1, double x2, int n) {
+        double[] xs = new double[Math.max(n, 0) + 1];
+        xs[0] = x1;
+        for (int i = 1; i < xs.length; i++) {
+            xs[i] = x1 + i * (x2 - x1) / n;
+        }
+        double[] values = new double[xs.length];
+        if (function instanceof DoubleFunction) {
+            ((DoubleFunction) function).evaluate(xs, values);
+        } else {
+            for (int i = 0; i < xs.length; i++) {
+                values[i] = function.apply(xs[i]);
+            }
+        }
+        return values;
+    }
+
     static double newtonsMethod(DifferentiableFunction function, double y, double initialGuess, double maxError, int maxIterations) {
         return newtonsMethod(function, function.differentiate(), y, initialGuess, maxError, maxIterations);
     }
@@ -35,13 +68,13 @@ public interface DoubleFunction extends Function<Double, Double> {
     }
 
     static int[] getPeaksAndTroughsCount(Function<Double, Double> function, double x1, double x2, int n) {
+        double[] values = sample(function, x1, x2, n);
         Boolean increasing = null;
         int peaks = 0;
         int troughs = 0;
-        double lastValue = function.apply(x1);
+        double lastValue = values[0];
         for (int i = 1; i <= n; i++) {
-            double dx = x1 + i * (x2 - x1) / n;
-            double y = function.apply(dx);
+            double y = values[i];
 
             int compare = Double.compare(y, lastValue);
             if (compare < 0 && increasing != null && increasing) {
@@ -62,22 +95,21 @@ public interface DoubleFunction extends Function<Double, Double> {
     }
 
     static double getMax(Function<Double, Double> function, double x1, double x2, int n) {
+        double[] values = sample(function, x1, x2, n);
         double max = Double.NEGATIVE_INFINITY;
         for (int i = 0; i <= n; i++) {
-            double dx = x1 + i * (x2 - x1) / n;
-            double y = function.apply(dx);
-            max = Math.max(max, y);
+            max = Math.max(max, values[i]);
         }
         return max;
     }
 
     static double[] getLocalExtremaApproximation(Function<Double, Double> function, double x1, double x2, int n) {
+        double[] values = sample(function, x1, x2, n);
         List<Double> extrema = new ArrayList<>();
         Boolean increasing = null;
-        double lastValue = function.apply(x1);
+        double lastValue = values[0];
         for (int i = 1; i <= n; i++) {
-            double dx = x1 + i * (x2 - x1) / n;
-            double y = function.apply(dx);
+            double y = values[i];
 
             int compare = Double.compare(y, lastValue);
             if ((compare < 0 && increasing != null && increasing) || (compare > 0 && increasing != null && !increasing)) {
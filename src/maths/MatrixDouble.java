@@ -3,104 +3,137 @@ package maths;
 import java.util.Arrays;
 
 
+/**
+ * A matrix of doubles stored in a single row-major array.<br><br>
+ * Operations return new matrices, except for the in-place ones ({@link #setEntry(int, int, double)},
+ * {@link #addInPlace(MatrixDouble)}, {@link #negateInPlace()} and {@link #multiplyRight(MatrixDouble, MatrixDouble)}) that
+ * let large matrices be built and combined without being copied.
+ */
 public class MatrixDouble {
-    private final double[][] entries;
-    private MatrixDouble(double[][] entries) {
-        if (entries.length == 0) throw new IllegalArgumentException("Empty Matrix");
-        Integer columns = null;
-        for (double[] row : entries) {
-            if (row.length == 0) throw new IllegalArgumentException("Empty Matrix");
-            else if (columns == null) columns = row.length;
-            else if (columns != row.length) throw new IllegalArgumentException("Matrix contains rows of different sizes");
-        }
+    /**
+     * The edge of the square blocks that products are computed by, so that the rows of both operands stay in the cache.
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    private final int rows;
+    private final int columns;
+    private final double[] entries;
+
+    private MatrixDouble(int rows, int columns, double[] entries) {
+        if (rows <= 0 || columns <= 0) throw new IllegalArgumentException("Empty Matrix");
+        this.rows = rows;
+        this.columns = columns;
         this.entries = entries;
     }
 
     public static MatrixDouble createVertical(double[] entries) {
-        double[][] newEntries = new double[entries.length][1];
-        for (int i = 0; i < entries.length; i++) {
-            newEntries[i][0] = entries[i];
-        }
-        return new MatrixDouble(newEntries);
+        return new MatrixDouble(entries.length, 1, Arrays.copyOf(entries, entries.length));
     }
 
     public static MatrixDouble createHorizontal(double[] entries) {
-        double[][] newEntries = new double[1][];
-        newEntries[0] = Arrays.copyOf(entries, entries.length);
-        return new MatrixDouble(newEntries);
-    }
-
-    private static double[][] copyArray2D(double[][] entries) {
-        double[][] entriesCopy = new double[entries.length][];
-        for (int i = 0; i < entriesCopy.length; i++) {
-            entriesCopy[i] = Arrays.copyOf(entries[i], entries[i].length);
-        }
-        return entriesCopy;
+        return new MatrixDouble(1, entries.length, Arrays.copyOf(entries, entries.length));
     }
 
     public static MatrixDouble createMatrix(MatrixDouble m) {
-        return createMatrix(m.entries);
+        return new MatrixDouble(m.rows, m.columns, Arrays.copyOf(m.entries, m.entries.length));
     }
 
     public static MatrixDouble createMatrix(double[][] entries) {
-        return new MatrixDouble(copyArray2D(entries));
+        if (entries.length == 0 || entries[0].length == 0) throw new IllegalArgumentException("Empty Matrix");
+        int columns = entries[0].length;
+        double[] newEntries = new double[entries.length * columns];
+        for (int y = 0; y < entries.length; y++) {
+            if (entries[y].length != columns) throw new IllegalArgumentException("Matrix contains rows of different sizes");
+            System.arraycopy(entries[y], 0, newEntries, y * columns, columns);
+        }
+        return new MatrixDouble(entries.length, columns, newEntries);
+    }
+
+    /**
+     * Creates a matrix from its entries in row-major order, i.e. the entry at row y and column x is at index
+     * {@code y * columns + x}.
+     */
+    public static MatrixDouble createMatrix(int rows, int columns, double[] entries) {
+        if (entries.length != rows * columns) throw new IllegalArgumentException("entries length(" + entries.length + ") does not match [" + rows + "x" + columns + "]");
+        return new MatrixDouble(rows, columns, Arrays.copyOf(entries, entries.length));
     }
 
     public static MatrixDouble createZero(int n) {
-        return new MatrixDouble(new double[n][n]);
+        return createZero(n, n);
+    }
+
+    public static MatrixDouble createZero(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) throw new IllegalArgumentException("Empty Matrix");
+        return new MatrixDouble(rows, columns, new double[rows * columns]);
     }
 
     public static MatrixDouble createIdentity(int n) {
-        double[][] entries = new double[n][n];
+        MatrixDouble identity = createZero(n);
         for (int i = 0; i < n; i++) {
-            entries[i][i] = 1;
+            identity.entries[i * n + i] = 1;
         }
-        return new MatrixDouble(entries);
+        return identity;
     }
 
     public MatrixDouble transpose() {
-        double[][] entries = new double[getColumns()][];
-        for (int y = 0; y < entries.length; y++) {
-            entries[y] = new double[this.entries.length];
-            for (int x = 0; x < entries[y].length; x++) {
-                entries[y][x] = this.entries[x][y];
+        double[] entries = new double[this.entries.length];
+        for (int yy = 0; yy < rows; yy += BLOCK_SIZE) {
+            for (int xx = 0; xx < columns; xx += BLOCK_SIZE) {
+                for (int y = yy, yEnd = Math.min(yy + BLOCK_SIZE, rows); y < yEnd; y++) {
+                    for (int x = xx, xEnd = Math.min(xx + BLOCK_SIZE, columns); x < xEnd; x++) {
+                        entries[x * rows + y] = this.entries[y * columns + x];
+                    }
+                }
             }
         }
-        return new MatrixDouble(entries);
+        return new MatrixDouble(columns, rows, entries);
     }
 
     public MatrixDouble appendHorizontal(MatrixDouble m) {
-        if (getRows() != m.getRows()) throw new IllegalArgumentException("Invalid matrix dimensions for appending " + sizeString() + " <-> " + m.sizeString());
-        double[][] entries = new double[this.entries.length][];
-        for (int y = 0; y < entries.length; y++) {
-            entries[y] = new double[this.entries[y].length + m.entries[y].length];
-            System.arraycopy(this.entries[y], 0, entries[y], 0, this.entries[y].length);
-            System.arraycopy(m.entries[y], 0, entries[y], this.entries[y].length, m.entries[y].length);
+        if (rows != m.rows) throw new IllegalArgumentException("Invalid matrix dimensions for appending " + sizeString() + " <-> " + m.sizeString());
+        int newColumns = columns + m.columns;
+        double[] entries = new double[rows * newColumns];
+        for (int y = 0; y < rows; y++) {
+            System.arraycopy(this.entries, y * columns, entries, y * newColumns, columns);
+            System.arraycopy(m.entries, y * m.columns, entries, y * newColumns + columns, m.columns);
         }
-        return new MatrixDouble(entries);
+        return new MatrixDouble(rows, newColumns, entries);
     }
 
     public MatrixDouble negate() {
-        double[][] entries = new double[this.entries.length][];
-        for (int y = 0; y < entries.length; y++) {
-            entries[y] = new double[this.entries[y].length];
-            for (int x = 0; x < entries[y].length; x++) {
-                entries[y][x] = -this.entries[y][x];
-            }
+        return createMatrix(this).negateInPlace();
+    }
+
+    /**
+     * Negates every entry of this matrix.
+     * @return this matrix
+     */
+    public MatrixDouble negateInPlace() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = -entries[i];
         }
-        return new MatrixDouble(entries);
+        return this;
     }
 
     public MatrixDouble add(MatrixDouble m) {
-        if (getRows() != m.getRows() || getColumns() != m.getColumns()) throw new IllegalArgumentException("Invalid matrix dimensions for addition " + sizeString() + " + " + m.sizeString());
-        double[][] entries = new double[this.entries.length][];
-        for (int y = 0; y < entries.length; y++) {
-            entries[y] = new double[this.entries[y].length];
-            for (int x = 0; x < entries[y].length; x++) {
-                entries[y][x] = this.entries[y][x] + m.entries[y][x];
-            }
+        checkAddition(m);
+        return createMatrix(this).addInPlace(m);
+    }
+
+    /**
+     * Adds matrix {@code m} to the entries of this matrix.
+     * @return this matrix
+     */
+    public MatrixDouble addInPlace(MatrixDouble m) {
+        checkAddition(m);
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] += m.entries[i];
         }
-        return new MatrixDouble(entries);
+        return this;
+    }
+
+    private void checkAddition(MatrixDouble m) {
+        if (rows != m.rows || columns != m.columns) throw new IllegalArgumentException("Invalid matrix dimensions for addition " + sizeString() + " + " + m.sizeString());
     }
 
     public MatrixDouble multiplyLeft(MatrixDouble m) {
@@ -113,121 +146,143 @@ public class MatrixDouble {
      * @return the product matrix
      */
     public MatrixDouble multiplyRight(MatrixDouble m) {
-        if (getColumns() != m.getRows()) throw new IllegalArgumentException("Invalid matrix dimensions for multiplication " + sizeString() + " * " + m.sizeString());
-        double[][] entries = new double[this.entries.length][];
-        for (int y = 0; y < entries.length; y++) {
-            entries[y] = new double[m.entries[0].length];
-            for (int x = 0; x < entries[y].length; x++) {
-                double dotProduct = 0;
-                for (int i = 0, size = this.entries[y].length; i < size; i++) {
-                    dotProduct += this.entries[y][i] * m.entries[i][x];
+        if (columns != m.rows) throw new IllegalArgumentException("Invalid matrix dimensions for multiplication " + sizeString() + " * " + m.sizeString());
+        return multiplyRight(m, createZero(rows, m.columns));
+    }
+
+    /**
+     * Multiplies 2 matrices with matrix {@code m} on the right of {@code this} matrix (i.e. [this][m]) into an existing
+     * matrix, overwriting its entries.
+     * @param m the multiplicand matrix
+     * @param result the matrix receiving the product, which cannot be either operand
+     * @return the result matrix
+     */
+    public MatrixDouble multiplyRight(MatrixDouble m, MatrixDouble result) {
+        if (columns != m.rows) throw new IllegalArgumentException("Invalid matrix dimensions for multiplication " + sizeString() + " * " + m.sizeString());
+        if (result.rows != rows || result.columns != m.columns) throw new IllegalArgumentException("Invalid result matrix dimensions " + result.sizeString() + " for multiplication " + sizeString() + " * " + m.sizeString());
+        if (result == this || result == m) throw new IllegalArgumentException("Result matrix cannot be an operand of the multiplication");
+        double[] a = this.entries;
+        double[] b = m.entries;
+        double[] c = result.entries;
+        int n = m.columns;
+        Arrays.fill(c, 0);
+        // Within each block every entry of a is multiplied with a contiguous part of a row of b, and the terms of each entry
+        // of the product are still added in order
+        for (int yy = 0; yy < rows; yy += BLOCK_SIZE) {
+            int yEnd = Math.min(yy + BLOCK_SIZE, rows);
+            for (int kk = 0; kk < columns; kk += BLOCK_SIZE) {
+                int kEnd = Math.min(kk + BLOCK_SIZE, columns);
+                for (int xx = 0; xx < n; xx += BLOCK_SIZE) {
+                    int xEnd = Math.min(xx + BLOCK_SIZE, n);
+                    for (int y = yy; y < yEnd; y++) {
+                        int cRow = y * n;
+                        for (int k = kk; k < kEnd; k++) {
+                            double aEntry = a[y * columns + k];
+                            int bRow = k * n;
+                            for (int x = xx; x < xEnd; x++) {
+                                c[cRow + x] += aEntry * b[bRow + x];
+                            }
+                        }
+                    }
                 }
-                entries[y][x] = dotProduct;
             }
         }
-        return new MatrixDouble(entries);
+        return result;
     }
 
-    private static boolean isRowZero(double[][] entries, int row) {
-        return leadingCoefficient(entries, row) == null;
+    private static boolean isRowZero(double[] entries, int columns, int row) {
+        return leadingCoefficientColumn(entries, columns, row) < 0;
     }
 
-    private static Double leadingCoefficient(double[][] entries, int row) {
-        for (double e : entries[row]) {
-            if (e != 0) {
-                return e;
+    /**
+     * @return the column of the first non-zero entry of the row, or -1 if the row is zero
+     */
+    private static int leadingCoefficientColumn(double[] entries, int columns, int row) {
+        for (int x = 0; x < columns; x++) {
+            if (entries[row * columns + x] != 0) {
+                return x;
             }
         }
-        return null;
+        return -1;
     }
 
-    private static void rowSwap(double[][] entries, int row1, int row2) {
-        double[] temp = entries[row1];
-        entries[row1] = entries[row2];
-        entries[row2] = temp;
+    private static void rowSwap(double[] entries, int columns, int row1, int row2) {
+        if (row1 != row2) {
+            for (int i1 = row1 * columns, i2 = row2 * columns, end = i1 + columns; i1 < end; i1++, i2++) {
+                double temp = entries[i1];
+                entries[i1] = entries[i2];
+                entries[i2] = temp;
+            }
+        }
     }
 
-    private static void rowMultiply(double[][] entries, int row, double factor) {
+    private static void rowMultiply(double[] entries, int columns, int row, double factor) {
         if (factor == 0) throw new IllegalArgumentException("multiplying row by a factor of 0 is not an elementary operation");
-        for (int i = 0; i < entries[row].length; i++) {
-            entries[row][i] *= factor;
+        for (int i = row * columns, end = i + columns; i < end; i++) {
+            entries[i] *= factor;
         }
     }
 
-    private static void rowAdd(double[][] entries, int changeRow, int addRow, double factor) {
-        for (int i = 0; i < entries[changeRow].length; i++) {
-            entries[changeRow][i] += factor * entries[addRow][i];
+    private static void rowAdd(double[] entries, int columns, int changeRow, int addRow, double factor) {
+        for (int i = 0; i < columns; i++) {
+            entries[changeRow * columns + i] += factor * entries[addRow * columns + i];
         }
     }
 
-    private static boolean reduceToREF(double[][] entries) {
-        int m = entries.length;
-        int n = entries[0].length;
+    private static boolean reduceToREF(double[] entries, int m, int n) {
         for (int i = 0; i < Math.min(m, n); i++) {
             int pivotMax = 0;
             double pivotMaxAbsValue = 0;
             for (int j = i; j < m; j++) {
-                if (Math.abs(entries[j][i]) > pivotMaxAbsValue) {
+                if (Math.abs(entries[j * n + i]) > pivotMaxAbsValue) {
                     pivotMax = j;
-                    pivotMaxAbsValue = Math.abs(entries[j][i]);
+                    pivotMaxAbsValue = Math.abs(entries[j * n + i]);
                 }
             }
             if (pivotMaxAbsValue == 0) return false; // Matrix is singular
-            rowSwap(entries, i, pivotMax);
+            rowSwap(entries, n, i, pivotMax);
             for (int j = i + 1; j < m; j++) {
-                double factor = entries[j][i] / entries[i][i];
+                double factor = entries[j * n + i] / entries[i * n + i];
                 for (int k = i + 1; k < n; k++) {
-                    entries[j][k] -= entries[i][k] * factor;
+                    entries[j * n + k] -= entries[i * n + k] * factor;
                 }
-                entries[j][i] = 0;
+                entries[j * n + i] = 0;
             }
         }
         return true;
     }
 
-    private static boolean reduceToRREFFromREF(double[][] entries) {
-        for (int y = entries.length - 1; y >= 0; y--) {
-            int leadingCoefficientPosition = entries[y].length - 1;
-            Double leadingCoefficient = null;
-            for (int x = 0; x < entries[y].length; x++) {
-                if (entries[y][x] != 0) {
-                    leadingCoefficientPosition = x;
-                    leadingCoefficient = entries[y][x];
-                    break;
-                }
-            }
-            if (leadingCoefficient == null) {
+    private static boolean reduceToRREFFromREF(double[] entries, int rows, int columns) {
+        for (int y = rows - 1; y >= 0; y--) {
+            int leadingCoefficientPosition = leadingCoefficientColumn(entries, columns, y);
+            if (leadingCoefficientPosition < 0) {
                 return false;
             } else {
-                rowMultiply(entries, y, 1.0 / leadingCoefficient);
+                rowMultiply(entries, columns, y, 1.0 / entries[y * columns + leadingCoefficientPosition]);
                 for (int y2 = 0; y2 < y; y2++) {
-                    rowAdd(entries, y2, y, -entries[y2][leadingCoefficientPosition]);
+                    rowAdd(entries, columns, y2, y, -entries[y2 * columns + leadingCoefficientPosition]);
                 }
             }
         }
         return true;
     }
 
-    private static boolean isRowEchelonForm(double[][] entries) {
-        int rows = entries.length;
+    private static boolean isRowEchelonForm(double[] entries, int rows, int columns) {
         boolean rowIsZero = true;
         for (int y = rows - 1; y >= 0; y--) {
-            if (!isRowZero(entries, y)) {
+            if (!isRowZero(entries, columns, y)) {
                 rowIsZero = false;
             } else if (!rowIsZero) {
                 return false;
             }
         }
         for (int y = 0; y < rows; y++) {
-            int leadingCoefficientColumn = entries[y].length - 1;
-            for (int x = 0; x < entries[y].length; x++) {
-                if (entries[y][x] != 0) {
-                    leadingCoefficientColumn = x;
-                    break;
-                }
+            int leadingCoefficientColumn = leadingCoefficientColumn(entries, columns, y);
+            if (leadingCoefficientColumn < 0) {
+                leadingCoefficientColumn = columns - 1;
             }
             for (int y2 = y + 1; y2 < rows; y2++) {
-                if (entries[y2][leadingCoefficientColumn] != 0) {
+                if (entries[y2 * columns + leadingCoefficientColumn] != 0) {
                     return false;
                 }
             }
@@ -236,85 +291,329 @@ public class MatrixDouble {
     }
 
     public boolean isRowEchelonForm() {
-        return isRowEchelonForm(this.entries);
+        return isRowEchelonForm(this.entries, rows, columns);
     }
 
     public MatrixDouble rowEchelonForm() {
-        double[][] entries = copyArray2D(this.entries);
-        reduceToREF(entries);
-        return new MatrixDouble(entries);
+        MatrixDouble m = createMatrix(this);
+        reduceToREF(m.entries, rows, columns);
+        return m;
     }
 
     public MatrixDouble reducedRowEchelonForm() {
-        double[][] entries = copyArray2D(this.entries);
-        if (!isRowEchelonForm(entries)) {
-            reduceToREF(entries);
+        MatrixDouble m = createMatrix(this);
+        if (!isRowEchelonForm(m.entries, rows, columns)) {
+            reduceToREF(m.entries, rows, columns);
         }
-        reduceToRREFFromREF(entries);
-        return new MatrixDouble(entries);
+        reduceToRREFFromREF(m.entries, rows, columns);
+        return m;
     }
 
-    private MatrixDouble removeFirstColumns(int n) {
-        double[][] entries = new double[this.entries.length][this.entries[0].length - n];
-        for (int y = 0; y < entries.length; y++) {
-            System.arraycopy(this.entries[y], n, entries[y], 0, entries[y].length);
+    /**
+     * Inverts the matrix, in closed form up to 3x3 and from an LU decomposition otherwise. Prefer {@link #solve(double[])}
+     * when the inverse is only multiplied with a vector.
+     * @return the inverse matrix
+     */
+    public MatrixDouble inverse() {
+        int n = rows;
+        if (n != columns) throw new UnsupportedOperationException("Inverse operation performed on non-invertible matrix " + sizeString());
+        double[] a = this.entries;
+        if (n <= 3) {
+            double determinant = determinant();
+            if (determinant == 0 || !Double.isFinite(determinant)) throw new UnsupportedOperationException("Inverse operation performed on singular matrix " + sizeString());
+            double[] inverse;
+            if (n == 1) {
+                inverse = new double[] {1 / a[0]};
+            } else if (n == 2) {
+                inverse = new double[] {a[3] / determinant, -a[1] / determinant, -a[2] / determinant, a[0] / determinant};
+            } else {
+                inverse = new double[9];
+                for (int y = 0; y < 3; y++) {
+                    for (int x = 0; x < 3; x++) {
+                        // The cofactor of entry (x, y), cyclic indices give the sign of the minor
+                        int y1 = (x + 1) % 3;
+                        int y2 = (x + 2) % 3;
+                        int x1 = (y + 1) % 3;
+                        int x2 = (y + 2) % 3;
+                        inverse[y * 3 + x] = (a[y1 * 3 + x1] * a[y2 * 3 + x2] - a[y1 * 3 + x2] * a[y2 * 3 + x1]) / determinant;
+                    }
+                }
+            }
+            return new MatrixDouble(n, n, inverse);
         }
-        return new MatrixDouble(entries);
+        double[] lu = Arrays.copyOf(a, a.length);
+        int[] pivots = new int[n];
+        if (!decomposeLU(lu, n, pivots)) throw new UnsupportedOperationException("Inverse operation performed on singular matrix " + sizeString());
+        return solveLU(lu, n, pivots, createIdentity(n));
     }
 
-    public MatrixDouble inverse() {
-        int rows = getRows();
-        if (rows != getColumns()) throw new UnsupportedOperationException("Inverse operation performed on non-invertible matrix " + sizeString());
-        return appendHorizontal(createIdentity(rows)).reducedRowEchelonForm().removeFirstColumns(rows);
+    /**
+     * Solves {@code [this][x] = [b]} with an LU decomposition with partial pivoting, without inverting the matrix.
+     * @param b the right-hand side, with one entry per row
+     * @return the solution x
+     */
+    public double[] solve(double[] b) {
+        if (b.length != rows) throw new IllegalArgumentException("b length(" + b.length + ") does not match " + sizeString());
+        int[] pivots = new int[rows];
+        double[] lu = decomposeLU(pivots);
+        double[] x = Arrays.copyOf(b, b.length);
+        solveLU(lu, rows, pivots, x);
+        return x;
     }
 
-    private static double[][] deleteRowAndColumn(double[][] entries, int row, int column) {
-        double[][] newEntries = new double[entries.length - 1][entries[0].length - 1];
-        for (int y = 0; y < entries.length; y++) {
-            if (y != row) {
-                int newY = y > row ? y - 1 : y;
-                for (int x = 0; x < entries[y].length; x++) {
-                    if (x != column) {
-                        int newX = x > column ? x - 1 : x;
-                        newEntries[newY][newX] = entries[y][x];
+    /**
+     * Solves {@code [this][x] = [b]} for every column of b, decomposing the matrix once.
+     * @param b the right-hand sides as columns
+     * @return the solutions as columns
+     */
+    public MatrixDouble solve(MatrixDouble b) {
+        if (b.rows != rows) throw new IllegalArgumentException("Invalid matrix dimensions for solving " + sizeString() + " <-> " + b.sizeString());
+        int[] pivots = new int[rows];
+        double[] lu = decomposeLU(pivots);
+        return solveLU(lu, rows, pivots, b);
+    }
+
+    private double[] decomposeLU(int[] pivots) {
+        if (rows != columns) throw new UnsupportedOperationException("Cannot solve non-square matrix " + sizeString());
+        double[] lu = Arrays.copyOf(entries, entries.length);
+        if (!decomposeLU(lu, rows, pivots)) throw new UnsupportedOperationException("Cannot solve singular matrix " + sizeString());
+        return lu;
+    }
+
+    private static MatrixDouble solveLU(double[] lu, int n, int[] pivots, MatrixDouble b) {
+        MatrixDouble solution = createZero(n, b.columns);
+        double[] column = new double[n];
+        for (int x = 0; x < b.columns; x++) {
+            for (int y = 0; y < n; y++) {
+                column[y] = b.entries[y * b.columns + x];
+            }
+            solveLU(lu, n, pivots, column);
+            for (int y = 0; y < n; y++) {
+                solution.entries[y * b.columns + x] = column[y];
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Solves {@code [this][x] = [b]} with a Cholesky decomposition, for symmetric positive definite matrices. Only the lower
+     * triangle of the matrix is read.
+     * @param b the right-hand side, with one entry per row
+     * @return the solution x
+     */
+    public double[] solveCholesky(double[] b) {
+        if (rows != columns) throw new UnsupportedOperationException("Cannot solve non-square matrix " + sizeString());
+        if (b.length != rows) throw new IllegalArgumentException("b length(" + b.length + ") does not match " + sizeString());
+        double[] lower = Arrays.copyOf(entries, entries.length);
+        if (!decomposeCholesky(lower, rows, 0)) throw new UnsupportedOperationException("Cannot solve matrix that is not positive definite " + sizeString());
+        double[] x = Arrays.copyOf(b, b.length);
+        solveCholesky(lower, rows, x);
+        return x;
+    }
+
+    /**
+     * Solves {@code [a][x] = [b]} without allocating, for callers that solve repeatedly and keep their own buffers. The
+     * first n * n entries of a hold the n by n matrix in row-major order, and are overwritten with its LU decomposition.
+     * @param pivots receives the row swaps of the decomposition, with at least n entries
+     * @param b the right-hand side, replaced with the solution x
+     * @return whether the matrix is non-singular, b being left unchanged otherwise
+     */
+    public static boolean solveInPlace(double[] a, int n, int[] pivots, double[] b) {
+        checkInPlaceSize(a, n, b);
+        if (pivots.length < n) throw new IllegalArgumentException("pivots length(" + pivots.length + ") must be at least n(" + n + ")");
+        if (!decomposeLU(a, n, pivots)) {
+            return false;
+        }
+        solveLU(a, n, pivots, b);
+        return true;
+    }
+
+    /**
+     * Solves {@code [a][x] = [b]} with a Cholesky decomposition without allocating, for symmetric positive definite
+     * matrices. The first n * n entries of a hold the n by n matrix in row-major order. Only its lower triangle is read, and
+     * it is overwritten with the decomposition.
+     * @param minPivot the fraction of its diagonal entry that a pivot must exceed, below which the matrix is treated as
+     *                 not positive definite
+     * @param b the right-hand side, replaced with the solution x
+     * @return whether the matrix is numerically positive definite, b being left unchanged otherwise
+     */
+    public static boolean solveCholeskyInPlace(double[] a, int n, double minPivot, double[] b) {
+        checkInPlaceSize(a, n, b);
+        if (!decomposeCholesky(a, n, minPivot)) {
+            return false;
+        }
+        solveCholesky(a, n, b);
+        return true;
+    }
+
+    private static void checkInPlaceSize(double[] a, int n, double[] b) {
+        if (n < 1 || a.length / n < n) throw new IllegalArgumentException("n(" + n + ") must be at least 1, with n * n entries in a(" + a.length + ")");
+        if (b.length < n) throw new IllegalArgumentException("b length(" + b.length + ") must be at least n(" + n + ")");
+    }
+
+    /**
+     * Decomposes the n by n row-major matrix a into {@code P A = L U} in place, L below the diagonal with an implicit unit
+     * diagonal and U on and above it.
+     * @param pivots receives, for each row i, the row it was swapped with when eliminating column i
+     * @return whether the matrix is non-singular
+     */
+    private static boolean decomposeLU(double[] a, int n, int[] pivots) {
+        for (int i = 0; i < n; i++) {
+            int pivot = i;
+            double pivotAbsValue = Math.abs(a[i * n + i]);
+            for (int j = i + 1; j < n; j++) {
+                if (Math.abs(a[j * n + i]) > pivotAbsValue) {
+                    pivot = j;
+                    pivotAbsValue = Math.abs(a[j * n + i]);
+                }
+            }
+            if (pivotAbsValue == 0 || !Double.isFinite(pivotAbsValue)) {
+                return false;
+            }
+            pivots[i] = pivot;
+            if (pivot != i) {
+                rowSwap(a, n, i, pivot);
+            }
+            int pivotRow = i * n;
+            for (int j = i + 1; j < n; j++) {
+                int row = j * n;
+                double factor = a[row + i] / a[pivotRow + i];
+                a[row + i] = factor;
+                for (int k = i + 1; k < n; k++) {
+                    a[row + k] -= factor * a[pivotRow + k];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves with a decomposition of {@link #decomposeLU(double[], int, int[])}, replacing b with the solution.
+     */
+    private static void solveLU(double[] lu, int n, int[] pivots, double[] b) {
+        for (int i = 0; i < n; i++) {
+            double temp = b[i];
+            b[i] = b[pivots[i]];
+            b[pivots[i]] = temp;
+        }
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= lu[i * n + k] * b[k];
+            }
+            b[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= lu[i * n + k] * b[k];
+            }
+            b[i] = sum / lu[i * n + i];
+        }
+    }
+
+    /**
+     * Decomposes the n by n symmetric row-major matrix a into {@code L L^T} in place, L replacing the lower triangle. The
+     * upper triangle is neither read nor changed.
+     * @param minPivot the fraction of its diagonal entry that a pivot must exceed, below which the matrix is treated as
+     *                 not positive definite
+     * @return whether the matrix is numerically positive definite
+     */
+    private static boolean decomposeCholesky(double[] a, int n, double minPivot) {
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j <= i; j++) {
+                int rowJ = j * n;
+                double sum = a[row + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[row + k] * a[rowJ + k];
+                }
+                if (i == j) {
+                    if (!(sum > a[row + i] * minPivot) || !(sum > 0)) {
+                        return false;
                     }
+                    a[row + i] = Math.sqrt(sum);
+                } else {
+                    a[row + j] = sum / a[rowJ + j];
                 }
             }
         }
-        return newEntries;
+        return true;
     }
 
-    private static double determinant(double[][] entries) {
-        if (entries.length == 2 && entries[0].length == 2) {
-            return entries[0][0] * entries[1][1] - entries[1][0] * entries[0][1];
-        } else {
-            double determinant = 0;
-            for (int y = 0; y < entries.length; y++) {
-                determinant += (y % 2 == 0 ? 1 : -1) * entries[y][0] * determinant(deleteRowAndColumn(entries, y, 0));
+    /**
+     * Solves with a decomposition of {@link #decomposeCholesky(double[], int, double)}, replacing b with the solution.
+     */
+    private static void solveCholesky(double[] lower, int n, double[] b) {
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= lower[i * n + k] * b[k];
             }
-            return determinant;
+            b[i] = sum / lower[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= lower[k * n + i] * b[k];
+            }
+            b[i] = sum / lower[i * n + i];
         }
     }
 
+    /**
+     * Calculates the determinant, in closed form up to 3x3 and from an LU decomposition otherwise.
+     * @return the determinant
+     */
     public double determinant() {
         if (!isSquare()) throw new UnsupportedOperationException("Cannot calculate determinant from non-square matrix " + sizeString());
-        return determinant(this.entries);
+        double[] a = this.entries;
+        int n = rows;
+        if (n == 1) {
+            return a[0];
+        } else if (n == 2) {
+            return a[0] * a[3] - a[2] * a[1];
+        } else if (n == 3) {
+            return a[0] * (a[4] * a[8] - a[5] * a[7])
+                    - a[1] * (a[3] * a[8] - a[5] * a[6])
+                    + a[2] * (a[3] * a[7] - a[4] * a[6]);
+        }
+        double[] lu = Arrays.copyOf(a, a.length);
+        int[] pivots = new int[n];
+        if (!decomposeLU(lu, n, pivots)) {
+            return 0;
+        }
+        double determinant = 1;
+        for (int i = 0; i < n; i++) {
+            // Each row swap flips the sign
+            determinant *= pivots[i] == i ? lu[i * n + i] : -lu[i * n + i];
+        }
+        return determinant;
     }
 
     public double getEntry(int row, int column) {
-        return this.entries[row][column];
+        return this.entries[index(row, column)];
+    }
+
+    public void setEntry(int row, int column, double value) {
+        this.entries[index(row, column)] = value;
+    }
+
+    private int index(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) throw new IndexOutOfBoundsException("Entry(" + row + ", " + column + ") is out of bounds for " + sizeString());
+        return row * columns + column;
     }
 
     public int getRows() {
-        return this.entries.length;
+        return rows;
     }
 
     public int getColumns() {
-        return this.entries.length > 0 ? this.entries[0].length : 0;
+        return columns;
     }
 
     public boolean isSquare() {
-        return getRows() == getColumns();
+        return rows == columns;
     }
 
     @Override
@@ -326,24 +625,24 @@ public class MatrixDouble {
             return false;
         }
         MatrixDouble that = (MatrixDouble) o;
-        return Arrays.deepEquals(entries, that.entries);
+        return rows == that.rows && columns == that.columns && Arrays.equals(entries, that.entries);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(entries);
+        return 31 * columns + Arrays.hashCode(entries);
     }
 
     private String sizeString() {
-        return "[" + getRows() + "x" + getColumns() + "]";
+        return "[" + rows + "x" + columns + "]";
     }
 
     @Override
     public String toString() {
         String newLine = System.lineSeparator();
         StringBuilder s = new StringBuilder("MatrixDouble{ ").append(sizeString()).append(newLine);
-        for (double[] row : this.entries) {
-            s.append(Arrays.toString(row)).append(newLine);
+        for (int y = 0; y < rows; y++) {
+            s.append(Arrays.toString(Arrays.copyOfRange(entries, y * columns, (y + 1) * columns))).append(newLine);
         }
         return s.append("}").toString();
     }
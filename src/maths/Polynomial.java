@@ -1,8 +1,9 @@
 package maths;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
 
 
@@ -10,6 +11,10 @@ public class Polynomial implements DifferentiableFunction {
     public static final Polynomial ZERO = new Polynomial(0);
 
     private final double[] coefficients;
+    /**
+     * The Sturm chain of the polynomial, {@code null} until first needed.
+     */
+    private volatile Polynomial[] sturmChain;
 
     public Polynomial(double... coefficients) {
         if (coefficients.length == 0) {
@@ -65,19 +70,57 @@ public class Polynomial implements DifferentiableFunction {
                         coefficients[coefficients.length - 1]);
             }
         } else {
-            if (x < 1) {
-                double sum = 0;
-                for (int i = coefficients.length - 1; i >= 1; i--) {
-                    sum += coefficients[i] * Math.pow(x, i);
-                }
-                return sum + coefficients[0];
-            } else {
-                double sum = coefficients[0];
-                for (int i = 1; i < coefficients.length; i++) {
-                    sum += coefficients[i] * Math.pow(x, i);
-                }
-                return sum;
+            return evaluateFinite(x);
+        }
+    }
+
+    private double evaluateFinite(double x) {
+        double sum = coefficients[coefficients.length - 1];
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            sum = sum * x + coefficients[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void evaluate(double[] xs, double[] out) {
+        if (out.length < xs.length) throw new IllegalArgumentException("out length(" + out.length + ") cannot be less than xs length(" + xs.length + ")");
+        for (int i = 0; i < xs.length; i++) {
+            double x = xs[i];
+            out[i] = Double.isFinite(x) ? evaluateFinite(x) : evaluate(x);
+        }
+    }
+
+    /**
+     * Evaluates the polynomial and its derivatives in a single pass, without creating the derivative polynomials.
+     * @param x the value to evaluate at
+     * @param out receives the value of the polynomial at index 0 and its k-th derivative at index k, for every index of the array
+     */
+    public void evaluateDerivatives(double x, double[] out) {
+        if (!Double.isFinite(x)) {
+            Polynomial derivative = this;
+            for (int k = 0; k < out.length; k++) {
+                out[k] = derivative.evaluate(x);
+                derivative = derivative.differentiate();
             }
+            return;
+        }
+        if (out.length == 0) {
+            return;
+        }
+        int degree = coefficients.length - 1;
+        out[0] = coefficients[degree];
+        Arrays.fill(out, 1, out.length, 0);
+        for (int i = degree - 1; i >= 0; i--) {
+            for (int k = Math.min(out.length - 1, degree - i); k >= 1; k--) {
+                out[k] = out[k] * x + out[k - 1];
+            }
+            out[0] = out[0] * x + coefficients[i];
+        }
+        double factorial = 1;
+        for (int k = 2; k < out.length; k++) {
+            factorial *= k;
+            out[k] *= factorial;
         }
     }
 
@@ -219,10 +262,30 @@ public class Polynomial implements DifferentiableFunction {
         return divide(divisor)[1];
     }
 
-    private int sturmChainSignChanges(Collection<Polynomial> sturmChain, double x) {
+    private Polynomial[] getSturmChain() {
+        Polynomial[] sturmChain = this.sturmChain;
+        if (sturmChain == null) {
+            List<Polynomial> chain = new ArrayList<>();
+            Polynomial previous = this;
+            Polynomial current = differentiate();
+            chain.add(previous);
+            // The chain of a constant polynomial ends at the polynomial itself
+            while (!current.isZero()) {
+                chain.add(current);
+                Polynomial next = previous.remainder(current).crop(current.getDegree() - 1);
+                previous = current;
+                current = next.negate();
+            }
+            sturmChain = chain.toArray(new Polynomial[0]);
+            this.sturmChain = sturmChain;
+        }
+        return sturmChain;
+    }
+
+    private int sturmChainSignChanges(double x) {
         Boolean currentSign = null;
         int signChanges = 0;
-        for (Polynomial p : sturmChain) {
+        for (Polynomial p : getSturmChain()) {
             double y = p.evaluate(x);
             if (y != 0) {
                 if (currentSign == null) {
@@ -254,39 +317,86 @@ public class Polynomial implements DifferentiableFunction {
      * @param x1 the lower bound of the half-open interval
      * @param x2 the upper bound of the half-open interval
      * @return arbitary values that separate roots of the function
+     * @see #getRootIsolatingIntervals(double, double)
      */
     public List<Double> getSignChangesLocations(double x1, double x2) {
         List<Double> signChangeLocations = new ArrayList<>();
-        double center = (x1 + x2) / 2.0;
-        int totalRoots = getZerosCount(x1, x2);
-        int leftRoots = getZerosCount(x1, center);
-        int rightRoots = totalRoots - leftRoots;
-        if (totalRoots == 0) {
-            return signChangeLocations;
-        } else if (totalRoots == 1) {
-            signChangeLocations.add(x2);
-            return signChangeLocations;
-        } else if (leftRoots == 1 && rightRoots == 1) {
-            signChangeLocations.add(center);
-            signChangeLocations.add(x2);
-            return signChangeLocations;
-        } else if (leftRoots == 0) {
-            return getSignChangesLocations(center, x2);
-        } else if (rightRoots == 0) {
-            return getSignChangesLocations(x1, center);
-        } else if (leftRoots == 1) {
-            signChangeLocations.add(center);
-            signChangeLocations.addAll(getSignChangesLocations(center, x2));
-            return signChangeLocations;
-        } else if (rightRoots == 1) {
-            signChangeLocations.addAll(getSignChangesLocations(x1, center));
-            signChangeLocations.add(x2);
-            return signChangeLocations;
-        } else {
-            signChangeLocations.addAll(getSignChangesLocations(x1, center));
-            signChangeLocations.addAll(getSignChangesLocations(center, x2));
-            return signChangeLocations;
+        for (double[] interval : getRootIsolatingIntervals(x1, x2)) {
+            signChangeLocations.add(interval[1]);
         }
+        return signChangeLocations;
+    }
+
+    /**
+     * Splits the half-open interval ({@code x1}, {@code x2}] by bisection into intervals that each contain exactly 1 root,
+     * counting the roots with the Sturm chain.<br>
+     * Note: Roots closer together than the precision of a double cannot be separated and are returned as a single interval.
+     * @param x1 the lower bound of the half-open interval
+     * @param x2 the upper bound of the half-open interval
+     * @return the half-open intervals from the lowest to the highest, each as an array of its lower and upper bound
+     */
+    public List<double[]> getRootIsolatingIntervals(double x1, double x2) {
+        if (x2 <= x1) throw new IllegalArgumentException("Interval(" + x1 + ", " + x2 + ") must be strictly increasing with x2 > x1");
+        List<double[]> intervals = new ArrayList<>();
+        // Each pending interval holds its bounds and the sign changes of the Sturm chain at them, the leftmost last
+        Deque<double[]> pending = new ArrayDeque<>();
+        pending.push(new double[] {x1, x2, sturmChainSignChanges(x1), sturmChainSignChanges(x2)});
+        while (!pending.isEmpty()) {
+            double[] interval = pending.pop();
+            double lower = interval[0];
+            double upper = interval[1];
+            int roots = (int) (interval[2] - interval[3]);
+            if (roots == 1) {
+                intervals.add(new double[] {lower, upper});
+            } else if (roots > 1) {
+                double center = (lower + upper) / 2.0;
+                if (center <= lower || center >= upper) {
+                    intervals.add(new double[] {lower, upper});
+                    continue;
+                }
+                double centerSignChanges = sturmChainSignChanges(center);
+                if (centerSignChanges - interval[3] > 0) {
+                    pending.push(new double[] {center, upper, centerSignChanges, interval[3]});
+                }
+                if (interval[2] - centerSignChanges > 0) {
+                    pending.push(new double[] {lower, center, interval[2], centerSignChanges});
+                }
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Finds the roots in the half-open interval ({@code x1}, {@code x2}] by bisecting the intervals of
+     * {@link #getRootIsolatingIntervals(double, double)} until they are no wider than {@code maxError}.
+     * @param x1 the lower bound of the half-open interval
+     * @param x2 the upper bound of the half-open interval
+     * @param maxError the maximum distance of each value from its root
+     * @return the roots from the lowest to the highest
+     */
+    public List<Double> getRoots(double x1, double x2, double maxError) {
+        if (!(maxError > 0)) throw new IllegalArgumentException("maxError(" + maxError + ") must be positive");
+        List<Double> roots = new ArrayList<>();
+        for (double[] interval : getRootIsolatingIntervals(x1, x2)) {
+            double lower = interval[0];
+            double upper = interval[1];
+            int lowerSignChanges = sturmChainSignChanges(lower);
+            while (upper - lower > maxError) {
+                double center = (lower + upper) / 2.0;
+                if (center <= lower || center >= upper) {
+                    break;
+                }
+                int centerSignChanges = sturmChainSignChanges(center);
+                if (lowerSignChanges - centerSignChanges > 0) {
+                    upper = center;
+                } else {
+                    lower = center;
+                    lowerSignChanges = centerSignChanges;
+                }
+            }
+            roots.add(upper);
+        }
+        return roots;
     }
 
     /**
@@ -300,28 +410,14 @@ public class Polynomial implements DifferentiableFunction {
 
     /**
      * Determines the number of zeros in a specified half-open interval ({@code x1}, {@code x2}] using Strum's theorem.
+     * The Sturm chain is built on the first call and kept for the later ones.
      * @param x1 the lower bound of the half-open interval
      * @param x2 the upper bound of the half-open interval
      * @return the number of zeros in the interval
      */
     public int getZerosCount(double x1, double x2) {
         if (x2 <= x1) throw new IllegalArgumentException("Interval(" + x1 + ", " + x2 + ") must be strictly increasing with x2 > x1");
-        List<Polynomial> sturmChain = new ArrayList<>();
-        Polynomial previous = this;
-        Polynomial current = differentiate();
-        sturmChain.add(previous);
-        sturmChain.add(current);
-        while (true) {
-            Polynomial next = previous.remainder(current).crop(current.getDegree() - 1);
-            if (!next.isZero()) {
-                previous = current;
-                current = next.negate();
-                sturmChain.add(current);
-            } else {
-                break;
-            }
-        }
-        return sturmChainSignChanges(sturmChain, x1) - sturmChainSignChanges(sturmChain, x2);
+        return sturmChainSignChanges(x1) - sturmChainSignChanges(x2);
     }
 
     @Override
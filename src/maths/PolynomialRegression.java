@@ -1,5 +1,6 @@
 package maths;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 
@@ -23,21 +24,7 @@ public class PolynomialRegression {
         if (x.length != y.length) throw new IllegalArgumentException("data set values size does not match");
         if (x.length == 0) throw new IllegalArgumentException("no data");
         if (degree < 0) throw new IllegalArgumentException("degree(" + degree + ") cannot be less than 0");
-        double[][] entries = new double[x.length][degree + 1];
-        for (int row = 0; row < entries.length; row++) {
-            entries[row][0] = 1;
-            for (int col = 1; col < entries[row].length; col++) {
-                entries[row][col] = Math.pow(x[row], col);
-            }
-        }
-        MatrixDouble xMatrix = MatrixDouble.createMatrix(entries);
-        MatrixDouble xMatrixTranspose = xMatrix.transpose();
-        MatrixDouble regressionPolynomial = xMatrixTranspose.multiplyRight(xMatrix).inverse().multiplyRight(xMatrixTranspose).multiplyRight(MatrixDouble.createVertical(y));
-        double[] polynomial = new double[degree + 1];
-        for (int i = 0 ; i < polynomial.length; i++) {
-            polynomial[i] = regressionPolynomial.getEntry(i, 0);
-        }
-        this.polynomial = new Polynomial(polynomial);
+        this.polynomial = new Polynomial(fit(x, y, degree));
         double yMean = 0;
         for (double y2 : y) {
             yMean += y2;
@@ -53,6 +40,27 @@ public class PolynomialRegression {
         this.ssTotal = ssTot;
     }
 
+    PolynomialRegression(Polynomial polynomial, double ssResidual, double ssTotal) {
+        this.polynomial = polynomial;
+        this.ssResidual = ssResidual;
+        this.ssTotal = ssTotal;
+    }
+
+    /**
+     * Fits the polynomial from the normal equations. When there are too few distinct values of x to determine every
+     * coefficient, the highest degree that they determine is fitted instead and the higher coefficients are 0.
+     */
+    private static double[] fit(double[] x, double[] y, int degree) {
+        PolynomialRegressionAccumulator accumulator = PolynomialRegressionAccumulator.of(x, y, degree);
+        for (int d = degree; d >= 0; d--) {
+            double[] polynomial = accumulator.fit(d);
+            if (polynomial != null) {
+                return d == degree ? polynomial : Arrays.copyOf(polynomial, degree + 1);
+            }
+        }
+        throw new IllegalArgumentException("data set values must be finite");
+    }
+
     public Polynomial getPolynomial() {
         return polynomial;
     }
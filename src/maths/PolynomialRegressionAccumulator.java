@@ -0,0 +1,171 @@
+package maths;
+
+
+/**
+ * Sums of the powers of x and of their products with y over a set of points, from which the least squares polynomial of
+ * any degree up to a maximum is fitted without going over the points again. Points can be added and removed, such as to
+ * slide a window along a curve.<br><br>
+ * x is centered and scaled by its expected range so that the sums of high powers stay comparable, and y is taken relative
+ * to the first point added.
+ */
+public class PolynomialRegressionAccumulator {
+    private final int maxDegree;
+    private final double center;
+    private final double scale;
+    private final double[] powerSums;
+    private final double[] momentSums;
+    private final double[] normalMatrix;
+    private final double[] solution;
+    private double yOrigin;
+    private double ySum;
+    private double ySquaresSum;
+    private int count;
+
+    /**
+     * @param maxDegree the highest degree of the fitted polynomials
+     * @param xMin the lowest expected value of x
+     * @param xMax the highest expected value of x
+     */
+    public PolynomialRegressionAccumulator(int maxDegree, double xMin, double xMax) {
+        if (maxDegree < 0) throw new IllegalArgumentException("maxDegree(" + maxDegree + ") cannot be less than 0");
+        if (!(xMin <= xMax)) throw new IllegalArgumentException("xMin(" + xMin + ") cannot be greater than xMax(" + xMax + ")");
+        this.maxDegree = maxDegree;
+        this.center = (xMin + xMax) / 2;
+        double scale = (xMax - xMin) / 2;
+        this.scale = scale > 0 && Double.isFinite(scale) ? scale : 1;
+        this.powerSums = new double[2 * maxDegree + 1];
+        this.momentSums = new double[maxDegree + 1];
+        this.normalMatrix = new double[(maxDegree + 1) * (maxDegree + 1)];
+        this.solution = new double[maxDegree + 1];
+    }
+
+    /**
+     * Creates an accumulator of the points over the range of x.
+     */
+    static PolynomialRegressionAccumulator of(double[] x, double[] y, int maxDegree) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double d : x) {
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+        }
+        PolynomialRegressionAccumulator accumulator = new PolynomialRegressionAccumulator(maxDegree, min, max);
+        for (int i = 0; i < x.length; i++) {
+            accumulator.add(x[i], y[i]);
+        }
+        return accumulator;
+    }
+
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void add(double x, double y) {
+        if (count == 0) {
+            yOrigin = y;
+        }
+        accumulate(x, y, 1);
+    }
+
+    /**
+     * Removes a point that was added before.
+     */
+    public void remove(double x, double y) {
+        if (count == 0) throw new IllegalStateException("No point to remove");
+        accumulate(x, y, -1);
+    }
+
+    private void accumulate(double x, double y, int sign) {
+        double t = (x - center) / scale;
+        double dy = y - yOrigin;
+        double power = sign;
+        for (int k = 0; k < powerSums.length; k++) {
+            powerSums[k] += power;
+            if (k < momentSums.length) {
+                momentSums[k] += power * dy;
+            }
+            power *= t;
+        }
+        ySum += sign * dy;
+        ySquaresSum += sign * dy * dy;
+        count += sign;
+    }
+
+    /**
+     * Fits a polynomial to the points. The residual sum of squares of the regression is derived from the sums rather than
+     * from the points.
+     * @param degree the degree of the polynomial, at most {@link #getMaxDegree()}
+     * @return the regression, or {@code null} if there are fewer distinct values of x than coefficients
+     */
+    public PolynomialRegression getRegression(int degree) {
+        checkDegree(degree);
+        double[] polynomial = solve(degree) ? toPolynomial(degree) : null;
+        if (polynomial == null) {
+            return null;
+        }
+        double ssResidual = ySquaresSum;
+        for (int i = 0; i <= degree; i++) {
+            double sum = 0;
+            for (int j = 0; j <= degree; j++) {
+                sum += powerSums[i + j] * solution[j];
+            }
+            ssResidual += solution[i] * (sum - 2 * momentSums[i]);
+        }
+        double ssTotal = ySquaresSum - ySum * ySum / count;
+        return new PolynomialRegression(new Polynomial(polynomial), Math.max(ssResidual, 0), Math.max(ssTotal, 0));
+    }
+
+    /**
+     * @return the coefficients of the polynomial in x, or {@code null} if there are fewer distinct values of x than coefficients
+     */
+    double[] fit(int degree) {
+        checkDegree(degree);
+        return solve(degree) ? toPolynomial(degree) : null;
+    }
+
+    private void checkDegree(int degree) {
+        if (degree < 0 || degree > maxDegree) throw new IllegalArgumentException("degree(" + degree + ") must be in the range [0, " + maxDegree + "]");
+    }
+
+    /**
+     * Solves the normal equations of the centered and scaled x with a Cholesky decomposition, into {@link #solution}.
+     * @return whether the normal equations are numerically positive definite
+     */
+    private boolean solve(int degree) {
+        int size = degree + 1;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j <= i; j++) {
+                normalMatrix[i * size + j] = powerSums[i + j];
+            }
+            solution[i] = momentSums[i];
+        }
+        return MatrixDouble.solveCholeskyInPlace(normalMatrix, size, 1e-12, solution);
+    }
+
+    /**
+     * Expands the {@link #solution} polynomial in the centered and scaled x into a polynomial in x by Horner's scheme.
+     * @return the coefficients of the polynomial in x, or {@code null} if they are not finite
+     */
+    private double[] toPolynomial(int degree) {
+        double[] coefficients = solution;
+        double[] polynomial = new double[degree + 1];
+        polynomial[0] = coefficients[degree];
+        for (int k = degree - 1; k >= 0; k--) {
+            for (int j = degree - k; j > 0; j--) {
+                polynomial[j] = (polynomial[j - 1] - center * polynomial[j]) / scale;
+            }
+            polynomial[0] = -center * polynomial[0] / scale + coefficients[k];
+        }
+        polynomial[0] += yOrigin;
+        for (double c : polynomial) {
+            if (!Double.isFinite(c)) {
+                return null;
+            }
+        }
+        return polynomial;
+    }
+}
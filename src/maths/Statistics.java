@@ -1,8 +1,7 @@
 package maths;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 
@@ -23,14 +22,35 @@ public class Statistics {
         return mean / count;
     }
 
+    public static double getMean(double[] values) {
+        double mean = 0;
+        int count = 0;
+        for (double d : values) {
+            if (Double.isFinite(d)) {
+                mean += d;
+                count++;
+            }
+        }
+        return mean / count;
+    }
+
     public static double getStandardDeviation(Collection<Double> values) {
-        double mean = getMean(values);
+        return getStandardDeviation(toArray(values));
+    }
+
+    /**
+     * Calculates the deviation of the finite values in a single pass by Welford's algorithm.
+     */
+    public static double getStandardDeviation(double[] values) {
+        double mean = 0;
         double variance = 0;
         int count = 0;
         for (double d : values) {
             if (Double.isFinite(d)) {
-                variance += Math.pow(d - mean, 2.0);
                 count++;
+                double delta = d - mean;
+                mean += delta / count;
+                variance += delta * (d - mean);
             }
         }
         return Math.sqrt(variance / (count + 1));
@@ -40,12 +60,19 @@ public class Statistics {
         return tukeyRangeTest(1.5, values);
     }
 
+    public static double[] tukeyRangeTest(double[] values) {
+        return tukeyRangeTest(1.5, values);
+    }
+
     public static double[] tukeyRangeTest(double k, Collection<Double> values) {
+        return tukeyRangeTest(k, toArray(values));
+    }
+
+    public static double[] tukeyRangeTest(double k, double[] values) {
         if (k < 0) throw new IllegalArgumentException("k(" + k + ") must be non negative");
-        java.util.List<Double> sorted = new ArrayList<>(values);
-        Collections.sort(sorted);
-        double q1 = getQuartileSorted(sorted, 1);
-        double q3 = getQuartileSorted(sorted, 3);
+        double[] partitioned = Arrays.copyOf(values, values.length);
+        double q1 = getQuartilePartitioned(partitioned, 1);
+        double q3 = getQuartilePartitioned(partitioned, 3);
         double iqr = q3 - q1;
         return new double[] {q1 - k * iqr, q3 + k * iqr};
     }
@@ -54,13 +81,131 @@ public class Statistics {
         return getQuartile(values, 2);
     }
 
+    public static double getMedian(double[] values) {
+        return getQuartile(values, 2);
+    }
+
     public static double getQuartile(Collection<Double> values, int quartile) {
-        List<Double> sorted = new ArrayList<>(values);
-        Collections.sort(sorted);
-        return getQuartileSorted(sorted, quartile);
+        return getQuartile(toArray(values), quartile);
+    }
+
+    /**
+     * Calculates a quartile as {@link #getQuartileSorted(List, int)} would on the sorted values, selecting the values it
+     * needs in linear time instead of sorting. The array is not changed.
+     */
+    public static double getQuartile(double[] values, int quartile) {
+        return getQuartilePartitioned(Arrays.copyOf(values, values.length), quartile);
+    }
+
+    private static double[] toArray(Collection<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Picks the positions of {@link #getQuartileSorted(List, int)}, reordering the values around them.
+     */
+    private static double getQuartilePartitioned(double[] values, int quartile) {
+        int size = values.length;
+        if (size == 0) throw new IllegalArgumentException("No values");
+        if (quartile <= 0) {
+            return select(values, 0);
+        } else if (quartile >= 4) {
+            return select(values, size - 1);
+        } else if (quartile == 2) {
+            return getMedianPartitioned(values, 0, size);
+        } else if (size % 2 == 0) {
+            return quartile == 1 ? getMedianPartitioned(values, 0, size / 2) : getMedianPartitioned(values, size / 2, size);
+        } else if (size % 4 == 1) {
+            if (quartile == 1) {
+                return select(values, size / 4 - 1) * 0.25 + selectNext(values, size / 4 - 1) * 0.75;
+            } else {
+                return select(values, size / 4 * 3) * 0.75 + selectNext(values, size / 4 * 3) * 0.25;
+            }
+        } else {
+            if (quartile == 1) {
+                return select(values, size / 4) * 0.75 + selectNext(values, size / 4) * 0.25;
+            } else {
+                return select(values, size / 4 * 3 + 1) * 0.25 + selectNext(values, size / 4 * 3 + 1) * 0.75;
+            }
+        }
+    }
+
+    /**
+     * @return the median of the sorted values in positions {@code from} (inclusive) to {@code to} (exclusive)
+     */
+    private static double getMedianPartitioned(double[] values, int from, int to) {
+        int size = to - from;
+        if (size % 2 == 0) {
+            return (select(values, from + size / 2 - 1) + selectNext(values, from + size / 2 - 1)) / 2.0;
+        } else {
+            return select(values, from + size / 2);
+        }
+    }
+
+    /**
+     * Moves the value that would be at index k if the values were sorted there, by quickselect with a three-way partition,
+     * with lower values before it and higher ones after. Values are ordered as by {@link Double#compare(double, double)}.
+     * @return the value at index k
+     */
+    static double select(double[] values, int k) {
+        int from = 0;
+        int to = values.length - 1;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            double pivot = medianOf3(values[from], values[middle], values[to]);
+            int lower = from;
+            int higher = to;
+            int i = from;
+            while (i <= higher) {
+                int c = Double.compare(values[i], pivot);
+                if (c < 0) {
+                    swap(values, lower++, i++);
+                } else if (c > 0) {
+                    swap(values, i, higher--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lower) {
+                to = lower - 1;
+            } else if (k > higher) {
+                from = higher + 1;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+
+    /**
+     * @return the value that would follow index k if the values were sorted, after {@link #select(double[], int)} of k
+     */
+    private static double selectNext(double[] values, int k) {
+        double next = values[k + 1];
+        for (int i = k + 2; i < values.length; i++) {
+            if (Double.compare(values[i], next) < 0) {
+                next = values[i];
+            }
+        }
+        return next;
+    }
+
+    private static double medianOf3(double a, double b, double c) {
+        if (Double.compare(a, b) > 0) {
+            double temp = a;
+            a = b;
+            b = temp;
+        }
+        return Double.compare(b, c) <= 0 ? b : Double.compare(a, c) >= 0 ? a : c;
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double temp = values[i];
+        values[i] = values[j];
+        values[j] = temp;
     }
 
-    public static double getQuartileSorted(java.util.List<Double> values, int quartile) {
+    public static double getQuartileSorted(List<Double> values, int quartile) {
         if (values.size() == 0) throw new IllegalArgumentException("No values");
         if (quartile <= 0) {
             return values.get(0);
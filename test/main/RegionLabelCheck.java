@@ -0,0 +1,265 @@
+package main;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Compares {@link ImageAnalysis#labelRegions(BinaryImage, boolean, boolean, int[])},
+ * {@link ImageAnalysis#countLoops(BinaryImage)} and {@link ImageAnalysis#fillLoops(BinaryImage, java.util.function.Predicate)}
+ * with the flood fill they replaced, and the holes found by {@link ImageAnalysis#labelComponents(BinaryImage, boolean, int[])}
+ * with the background regions each blob encloses on its own, on random images and on 1 pixel wide strokes.
+ */
+public class RegionLabelCheck {
+
+    public static void main(String[] args) {
+        List<BinaryImage> images = new ArrayList<>();
+        Random random = new Random(8);
+        for (int i = 0; i < 2000; i++) {
+            int width = 1 + random.nextInt(i % 4 == 0 ? 3 : 40);
+            int height = 1 + random.nextInt(i % 4 == 1 ? 3 : 40);
+            double density = 0.2 + 0.6 * random.nextDouble();
+            BinaryImage image = new BinaryImage(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    image.setFilled(x, y, random.nextDouble() < density);
+                }
+            }
+            images.add(image);
+        }
+        List<BinaryImage> strokeImages = getStrokeImages();
+        images.addAll(strokeImages);
+
+        for (BinaryImage image : images) {
+            check(image);
+        }
+        // Holes of the blobs of each stroke image, in label order, with 8-connected ink
+        int[][] expectedHoles = {{1, 2}, {1}, {1}, {0}, {1}, {2}};
+        for (int i = 0; i < strokeImages.size(); i++) {
+            BinaryImage image = strokeImages.get(i);
+            int[] holes = ImageAnalysis.labelComponents(image, true, new int[image.getWidth() * image.getHeight()]).stream()
+                    .mapToInt(PixelRegion::getHoleCount).toArray();
+            if (!Arrays.equals(holes, expectedHoles[i])) fail(image, "holes are " + Arrays.toString(holes) + " instead of " + Arrays.toString(expectedHoles[i]));
+        }
+        System.out.println(images.size() + " images match");
+    }
+
+    private static List<BinaryImage> getStrokeImages() {
+        List<BinaryImage> images = new ArrayList<>();
+        // Ring, nested rings, two rings sharing a side
+        BinaryImage rings = new BinaryImage(20, 12);
+        drawRectangle(rings, 1, 1, 18, 10);
+        drawRectangle(rings, 4, 3, 9, 8);
+        drawRectangle(rings, 9, 3, 14, 8);
+        images.add(rings);
+        // Diamond whose sides only touch diagonally: a loop of 8-connected ink around 4-connected background
+        BinaryImage diamond = new BinaryImage(11, 11);
+        for (int i = 0; i <= 5; i++) {
+            diamond.setFilled(5 + i, i, true);
+            diamond.setFilled(5 - i, i, true);
+            diamond.setFilled(5 + i, 10 - i, true);
+            diamond.setFilled(5 - i, 10 - i, true);
+        }
+        images.add(diamond);
+        // Ring on the image border, and a 1 pixel wide serpentine
+        BinaryImage border = new BinaryImage(6, 5);
+        drawRectangle(border, 0, 0, 5, 4);
+        images.add(border);
+        BinaryImage serpentine = new BinaryImage(15, 9);
+        for (int y = 1; y < 9; y += 2) {
+            for (int x = 1; x < 14; x++) {
+                serpentine.setFilled(x, y, true);
+            }
+            serpentine.setFilled(y % 4 == 1 ? 13 : 1, y + 1 < 9 ? y + 1 : y, true);
+        }
+        images.add(serpentine);
+        // A "0" and an "8"
+        BinaryImage zero = new BinaryImage(7, 9);
+        drawRectangle(zero, 1, 1, 5, 7);
+        images.add(zero);
+        BinaryImage eight = new BinaryImage(7, 9);
+        drawRectangle(eight, 1, 1, 5, 4);
+        drawRectangle(eight, 1, 4, 5, 7);
+        images.add(eight);
+        return images;
+    }
+
+    private static void drawRectangle(BinaryImage image, int x1, int y1, int x2, int y2) {
+        for (int x = x1; x <= x2; x++) {
+            image.setFilled(x, y1, true);
+            image.setFilled(x, y2, true);
+        }
+        for (int y = y1; y <= y2; y++) {
+            image.setFilled(x1, y, true);
+            image.setFilled(x2, y, true);
+        }
+    }
+
+    private static void check(BinaryImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        for (int connectivity = 0; connectivity < 4; connectivity++) {
+            boolean filled = connectivity % 2 == 1;
+            boolean eightConnected = connectivity >= 2;
+            int[] labels = new int[width * height];
+            List<PixelRegion> regions = ImageAnalysis.labelRegions(image, filled, eightConnected, labels);
+            boolean[][] done = getPixels(image, !filled);
+            int count = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (done[y][x]) continue;
+                    Set<Point> area = floodFill(done, x, y, eightConnected);
+                    boolean touchesBorder = area.stream().anyMatch(p -> p.x == 0 || p.y == 0 || p.x == width - 1 || p.y == height - 1);
+                    PixelRegion region = regions.get(labels[y * width + x] - 1);
+                    int minX = area.stream().mapToInt(p -> p.x).min().getAsInt();
+                    int maxX = area.stream().mapToInt(p -> p.x).max().getAsInt();
+                    int minY = area.stream().mapToInt(p -> p.y).min().getAsInt();
+                    int maxY = area.stream().mapToInt(p -> p.y).max().getAsInt();
+                    for (Point p : area) {
+                        if (labels[p.y * width + p.x] != region.getLabel()) fail(image, "region at " + p + " is split");
+                    }
+                    if (region.getArea() != area.size() || region.isTouchingBorder() != touchesBorder
+                            || region.getMinX() != minX || region.getMaxX() != maxX || region.getMinY() != minY || region.getMaxY() != maxY) {
+                        fail(image, region + " differs from the flood fill at (" + x + ", " + y + ")");
+                    }
+                    count++;
+                }
+            }
+            if (count != regions.size()) fail(image, regions.size() + " regions instead of " + count);
+        }
+
+        for (boolean eightConnected : new boolean[] {false, true}) {
+            checkHoles(image, eightConnected);
+        }
+
+        // Old countLoops and fillLoops, which flood filled every empty area not touching the border
+        List<Set<Point>> loops = new ArrayList<>();
+        boolean[][] filledPixels = getPixels(image, true);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!filledPixels[y][x]) {
+                    Set<Point> fillArea = floodFillArea(filledPixels, x, y, false);
+                    if (fillArea.size() > 0) {
+                        loops.add(fillArea);
+                    }
+                }
+            }
+        }
+        if (ImageAnalysis.countLoops(image) != loops.size()) fail(image, "countLoops is " + ImageAnalysis.countLoops(image) + " instead of " + loops.size());
+        BinaryImage expected = image.copy();
+        loops.stream().filter(l -> l.size() % 2 == 1).forEach(l -> l.forEach(p -> expected.setFilled(p.x, p.y, true)));
+        BinaryImage filledImage = ImageAnalysis.fillLoops(image, r -> r.getArea() % 2 == 1);
+        if (!Arrays.equals(filledImage.getData(), expected.getData())) fail(image, "fillLoops differs");
+    }
+
+    /**
+     * Every background region enclosed by a blob drawn alone, and touching that blob, is one of its holes.
+     */
+    private static void checkHoles(BinaryImage image, boolean eightConnected) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] labels = new int[width * height];
+        List<PixelRegion> components = ImageAnalysis.labelComponents(image, eightConnected, labels);
+        for (PixelRegion component : components) {
+            BinaryImage alone = new BinaryImage(width, height);
+            for (int i = 0; i < labels.length; i++) {
+                alone.setFilled(i % width, i / width, labels[i] == component.getLabel());
+            }
+            boolean[][] done = getPixels(alone, true);
+            int holes = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (done[y][x]) continue;
+                    Set<Point> area = floodFill(done, x, y, !eightConnected);
+                    boolean enclosed = area.stream().noneMatch(p -> p.x == 0 || p.y == 0 || p.x == width - 1 || p.y == height - 1);
+                    boolean touching = area.stream().anyMatch(p -> !image.isFilled(p.x, p.y) && isNextTo(labels, width, height, p, component.getLabel()));
+                    if (enclosed && touching) {
+                        holes++;
+                    }
+                }
+            }
+            if (component.getHoleCount() != holes) fail(image, component + " should have " + holes + " holes");
+        }
+    }
+
+    private static boolean isNextTo(int[] labels, int width, int height, Point p, int label) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int x = p.x + dx;
+                int y = p.y + dy;
+                if (x >= 0 && y >= 0 && x < width && y < height && labels[y * width + x] == label) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<Point> floodFill(boolean[][] done, int x, int y, boolean eightConnected) {
+        Set<Point> area = new HashSet<>();
+        Deque<Point> toFill = new ArrayDeque<>();
+        toFill.add(new Point(x, y));
+        done[y][x] = true;
+        while (!toFill.isEmpty()) {
+            Point current = toFill.poll();
+            area.add(current);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = current.x + dx;
+                    int ny = current.y + dy;
+                    if (dx == 0 && dy == 0 || !eightConnected && dx != 0 && dy != 0) continue;
+                    if (ny >= 0 && ny < done.length && nx >= 0 && nx < done[ny].length && !done[ny][nx]) {
+                        done[ny][nx] = true;
+                        toFill.add(new Point(nx, ny));
+                    }
+                }
+            }
+        }
+        return area;
+    }
+
+    private static boolean[][] getPixels(BinaryImage image, boolean filled) {
+        boolean[][] pixels = new boolean[image.getHeight()][image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                pixels[y][x] = image.isFilled(x, y) == filled;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * The flood fill used before the scanline labeller.
+     */
+    private static Set<Point> floodFillArea(boolean[][] isFilled, int x, int y, boolean includeOutside) {
+        Set<Point> filled = new HashSet<>();
+        if (!isFilled[y][x]) {
+            boolean isOutside = false;
+            List<Point> toFill = new ArrayList<>();
+            toFill.add(new Point(x, y));
+            while (toFill.size() > 0) {
+                Point current = toFill.get(0);
+                toFill.remove(current);
+                if (current.y >= 0 && current.y < isFilled.length && current.x >= 0 && current.x < isFilled[current.y].length && !isFilled[current.y][current.x]) {
+                    if (current.y == 0 || current.y == isFilled.length - 1 || current.x == 0 || current.x == isFilled[current.y - 1].length - 1) {
+                        isOutside = true;
+                    }
+                    isFilled[current.y][current.x] = true;
+                    filled.add(current);
+                    toFill.add(new Point(current.x - 1, current.y));
+                    toFill.add(new Point(current.x + 1, current.y));
+                    toFill.add(new Point(current.x, current.y - 1));
+                    toFill.add(new Point(current.x, current.y + 1));
+                }
+            }
+            if (isOutside && !includeOutside) {
+                return new HashSet<>();
+            }
+        }
+        return filled;
+    }
+
+    private static void fail(BinaryImage image, String message) {
+        throw new IllegalStateException(message + " on a " + image.getWidth() + "x" + image.getHeight() + " image");
+    }
+}
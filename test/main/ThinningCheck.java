@@ -0,0 +1,155 @@
+package main;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Compares the serial and parallel {@link ImageAnalysis#thin(BinaryImage, boolean)} with a textbook Zhang-Suen
+ * thinning, on drawn digits of several stroke widths, 1 pixel wide strokes and random images.
+ */
+public class ThinningCheck {
+
+    public static void main(String[] args) {
+        List<BinaryImage> images = new ArrayList<>();
+        for (int strokeWidth : new int[] {1, 2, 3, 5, 10}) {
+            for (char digit = '0'; digit <= '9'; digit++) {
+                images.add(drawDigit(digit, strokeWidth));
+            }
+        }
+        images.addAll(getStrokeImages());
+        Random random = new Random(12);
+        for (int i = 0; i < 500; i++) {
+            int width = 1 + random.nextInt(i % 5 == 0 ? 3 : 50);
+            int height = 1 + random.nextInt(i % 5 == 1 ? 3 : 50);
+            double density = random.nextDouble();
+            BinaryImage image = new BinaryImage(width, height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    image.setFilled(x, y, random.nextDouble() < density);
+                }
+            }
+            images.add(image);
+        }
+
+        for (BinaryImage image : images) {
+            byte[] original = image.getData().clone();
+            byte[] expected = thinZhangSuen(image);
+            byte[] serial = ImageAnalysis.thin(image, false).getData();
+            byte[] parallel = ImageAnalysis.thin(image, true).getData();
+            if (!Arrays.equals(serial, expected)) fail(image, "serial thinning differs");
+            if (!Arrays.equals(parallel, expected)) fail(image, "parallel thinning differs");
+            if (!Arrays.equals(image.getData(), original)) fail(image, "the input was modified");
+        }
+        System.out.println(images.size() + " images match");
+    }
+
+    private static BinaryImage drawDigit(char digit, int strokeWidth) {
+        BufferedImage image = new BufferedImage(60, 80, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(strokeWidth));
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 60));
+        // Outline of the glyph so the stroke width is the given one
+        g.draw(g.getFont().createGlyphVector(g.getFontRenderContext(), String.valueOf(digit)).getOutline(10, 65));
+        g.dispose();
+        return BinaryImage.of(ArgbImage.of(image), rgb -> (rgb & 0x00FFFFFF) != 0xFFFFFF);
+    }
+
+    private static List<BinaryImage> getStrokeImages() {
+        List<BinaryImage> images = new ArrayList<>();
+        BinaryImage lines = new BinaryImage(20, 20);
+        for (int i = 0; i < 18; i++) {
+            lines.setFilled(i + 1, 2, true);
+            lines.setFilled(3, i + 1, true);
+            lines.setFilled(i + 1, i + 1, true);
+            lines.setFilled(18 - i, i + 1, true);
+        }
+        images.add(lines);
+        BinaryImage ring = new BinaryImage(12, 9);
+        for (int x = 2; x <= 9; x++) {
+            ring.setFilled(x, 1, true);
+            ring.setFilled(x, 7, true);
+        }
+        for (int y = 1; y <= 7; y++) {
+            ring.setFilled(2, y, true);
+            ring.setFilled(9, y, true);
+        }
+        images.add(ring);
+        BinaryImage edges = new BinaryImage(7, 5);
+        for (int x = 0; x < 7; x++) {
+            edges.setFilled(x, 0, true);
+            edges.setFilled(x, 1, true);
+        }
+        for (int y = 0; y < 5; y++) {
+            edges.setFilled(6, y, true);
+        }
+        images.add(edges);
+        BinaryImage full = new BinaryImage(9, 6);
+        Arrays.fill(full.getData(), (byte) 1);
+        images.add(full);
+        images.add(new BinaryImage(5, 5));
+        BinaryImage single = new BinaryImage(1, 1);
+        single.setFilled(0, 0, true);
+        images.add(single);
+        return images;
+    }
+
+    /**
+     * Zhang-Suen thinning as published: each sub-iteration marks the pixels to delete, then deletes them, until an
+     * iteration deletes nothing. Pixels outside the image are empty.
+     */
+    private static byte[] thinZhangSuen(BinaryImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean[][] pixels = new boolean[height + 2][width + 2];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y + 1][x + 1] = image.isFilled(x, y);
+            }
+        }
+        boolean changed;
+        do {
+            changed = false;
+            for (int step = 0; step < 2; step++) {
+                List<Point> marked = new ArrayList<>();
+                for (int y = 1; y <= height; y++) {
+                    for (int x = 1; x <= width; x++) {
+                        if (!pixels[y][x]) continue;
+                        boolean[] p = {pixels[y - 1][x], pixels[y - 1][x + 1], pixels[y][x + 1], pixels[y + 1][x + 1],
+                                pixels[y + 1][x], pixels[y + 1][x - 1], pixels[y][x - 1], pixels[y - 1][x - 1]};
+                        int b = 0;
+                        int a = 0;
+                        for (int k = 0; k < 8; k++) {
+                            if (p[k]) b++;
+                            if (!p[k] && p[(k + 1) % 8]) a++;
+                        }
+                        boolean p2 = p[0], p4 = p[2], p6 = p[4], p8 = p[6];
+                        boolean condition = step == 0 ? !(p2 && p4 && p6) && !(p4 && p6 && p8) : !(p2 && p4 && p8) && !(p2 && p6 && p8);
+                        if (b >= 2 && b <= 6 && a == 1 && condition) {
+                            marked.add(new Point(x, y));
+                        }
+                    }
+                }
+                for (Point point : marked) {
+                    pixels[point.y][point.x] = false;
+                }
+                changed |= !marked.isEmpty();
+            }
+        } while (changed);
+        byte[] data = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                data[y * width + x] = (byte) (pixels[y + 1][x + 1] ? 1 : 0);
+            }
+        }
+        return data;
+    }
+
+    private static void fail(BinaryImage image, String message) {
+        throw new IllegalStateException(message + " on a " + image.getWidth() + "x" + image.getHeight() + " image");
+    }
+}
@@ -0,0 +1,112 @@
+package maths;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Compares the quickselect quartiles of {@link Statistics} with {@link Statistics#getQuartileSorted(List, int)} on the
+ * sorted boxed values, as the quartiles were computed before, and the single pass standard deviation with the two pass one.
+ * Every array of up to 3 values taken from a set including NaN, infinities, 0.0 and -0.0 is checked, then random arrays with
+ * duplicates.
+ */
+public class QuartileCheck {
+    private static final double[] SPECIAL_VALUES = {Double.NaN, -0.0, 0.0, 1, -1, 2, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    public static void main(String[] args) {
+        int checked = 0;
+        for (int size = 1; size <= 3; size++) {
+            int combinations = (int) Math.pow(SPECIAL_VALUES.length, size);
+            for (int c = 0; c < combinations; c++) {
+                double[] values = new double[size];
+                for (int i = 0, rest = c; i < size; i++, rest /= SPECIAL_VALUES.length) {
+                    values[i] = SPECIAL_VALUES[rest % SPECIAL_VALUES.length];
+                }
+                check(values);
+                checked++;
+            }
+        }
+        Random random = new Random(25);
+        for (int n = 0; n < 20000; n++) {
+            double[] values = new double[1 + random.nextInt(n % 10 == 0 ? 200 : 12)];
+            for (int i = 0; i < values.length; i++) {
+                int kind = random.nextInt(20);
+                values[i] = kind == 0 ? Double.NaN : kind == 1 ? -0.0 : kind == 2 ? 0.0 : kind < 10 ? random.nextInt(5) : random.nextGaussian() * 100;
+            }
+            check(values);
+            checked++;
+        }
+        System.out.println(checked + " arrays match");
+    }
+
+    private static void check(double[] values) {
+        double[] original = values.clone();
+        List<Double> sorted = new ArrayList<>();
+        for (double d : values) {
+            sorted.add(d);
+        }
+        Collections.sort(sorted);
+        for (int q = -1; q <= 5; q++) {
+            int quartile = q;
+            String expected = quartileOf(() -> Statistics.getQuartileSorted(sorted, quartile));
+            String actual = quartileOf(() -> Statistics.getQuartile(values, quartile));
+            if (!expected.equals(actual)) fail(values, "quartile " + quartile + " is " + actual + " instead of " + expected);
+            String boxed = quartileOf(() -> Statistics.getQuartile(sorted, quartile));
+            if (!expected.equals(boxed)) fail(values, "boxed quartile " + quartile + " is " + boxed + " instead of " + expected);
+        }
+        String expectedRange = quartileOf(() -> {
+            double q1 = Statistics.getQuartileSorted(sorted, 1);
+            double q3 = Statistics.getQuartileSorted(sorted, 3);
+            return q1 - 1.5 * (q3 - q1) + " " + (q3 + 1.5 * (q3 - q1));
+        });
+        String range = quartileOf(() -> {
+            double[] r = Statistics.tukeyRangeTest(values);
+            return r[0] + " " + r[1];
+        });
+        if (!expectedRange.equals(range)) fail(values, "Tukey range is " + range + " instead of " + expectedRange);
+
+        double expectedDeviation = getStandardDeviationTwoPass(values);
+        double deviation = Statistics.getStandardDeviation(values);
+        if (Double.isNaN(expectedDeviation) != Double.isNaN(deviation) || Math.abs(deviation - expectedDeviation) > 1e-12 * Math.max(1, expectedDeviation)) {
+            fail(values, "standard deviation is " + deviation + " instead of " + expectedDeviation);
+        }
+        if (!Arrays.equals(values, original)) fail(values, "the values were modified");
+    }
+
+    /**
+     * @return the result as text, keeping -0.0 apart from 0.0, or the type of the exception thrown
+     */
+    private static String quartileOf(Supplier<Object> calculation) {
+        try {
+            return String.valueOf(calculation.get());
+        } catch (IndexOutOfBoundsException e) {
+            // The quartiles of a single value read past its end, in both versions
+            return IndexOutOfBoundsException.class.getSimpleName();
+        }
+    }
+
+    /**
+     * The standard deviation used before Welford's algorithm.
+     */
+    private static double getStandardDeviationTwoPass(double[] values) {
+        double mean = 0;
+        int count = 0;
+        for (double d : values) {
+            if (Double.isFinite(d)) {
+                mean += d;
+                count++;
+            }
+        }
+        mean /= count;
+        double variance = 0;
+        for (double d : values) {
+            if (Double.isFinite(d)) {
+                variance += Math.pow(d - mean, 2.0);
+            }
+        }
+        return Math.sqrt(variance / (count + 1));
+    }
+
+    private static void fail(double[] values, String message) {
+        throw new IllegalStateException(message + " for " + Arrays.toString(values));
+    }
+}
@@ -0,0 +1,133 @@
+package maths;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Slides a {@link PolynomialRegressionAccumulator} along curves by adding and removing points, and compares its fits with a
+ * least squares fit solved directly from the points of the window, as PolynomialRegression did before the accumulator.
+ */
+public class RegressionAccumulatorCheck {
+
+    public static void main(String[] args) {
+        Random random = new Random(20);
+        double worstValue = 0;
+        double worstR2 = 0;
+        int fits = 0;
+        for (int curve = 0; curve < 200; curve++) {
+            int n = 40 + random.nextInt(300);
+            double[] x = new double[n];
+            double[] y = new double[n];
+            double position = random.nextDouble() * 100;
+            for (int i = 0; i < n; i++) {
+                position += 0.5 + random.nextDouble();
+                x[i] = position;
+                y[i] = 200 + 30 * Math.sin(position / 15) + random.nextGaussian();
+            }
+            // The window keeps at least half of the range the accumulator is scaled for
+            int window = n / 2 + random.nextInt(n / 2);
+            int maxDegree = 5;
+            PolynomialRegressionAccumulator accumulator = new PolynomialRegressionAccumulator(maxDegree, x[0], x[n - 1]);
+            for (int i = 0; i < window; i++) {
+                accumulator.add(x[i], y[i]);
+            }
+            for (int start = 0; ; ) {
+                double[] wx = Arrays.copyOfRange(x, start, start + window);
+                double[] wy = Arrays.copyOfRange(y, start, start + window);
+                for (int degree = 0; degree <= maxDegree; degree++) {
+                    PolynomialRegression regression = accumulator.getRegression(degree);
+                    double[] expected = fitDirectly(wx, wy, degree);
+                    double yRange = Arrays.stream(wy).max().getAsDouble() - Arrays.stream(wy).min().getAsDouble();
+                    for (double v : wx) {
+                        double difference = Math.abs(regression.getPolynomial().evaluate(v) - evaluate(expected, v)) / yRange;
+                        worstValue = Math.max(worstValue, difference);
+                    }
+                    worstR2 = Math.max(worstR2, Math.abs(regression.getR2() - getR2(wx, wy, expected)));
+                    fits++;
+                }
+                // Slide the window, removing the points leaving it and adding those entering it
+                int step = 1 + random.nextInt(5);
+                if (start + step + window > n) {
+                    break;
+                }
+                for (int i = start; i < start + step; i++) {
+                    accumulator.remove(x[i], y[i]);
+                    accumulator.add(x[i + window], y[i + window]);
+                }
+                start += step;
+            }
+        }
+        System.out.println(fits + " fits, worst value difference " + worstValue + " of the y range, worst R2 difference " + worstR2);
+        if (worstValue > 1e-7 || worstR2 > 1e-7) throw new IllegalStateException("sliding fits differ from the direct fits");
+    }
+
+    /**
+     * Solves the normal equations of the points centered on their mean by Gaussian elimination with partial pivoting.
+     * @return the coefficients of the polynomial in x, from the constant term
+     */
+    static double[] fitDirectly(double[] x, double[] y, int degree) {
+        int size = degree + 1;
+        double mean = Arrays.stream(x).average().getAsDouble();
+        double[][] a = new double[size][size + 1];
+        for (int p = 0; p < x.length; p++) {
+            double t = x[p] - mean;
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    a[i][j] += Math.pow(t, i + j);
+                }
+                a[i][size] += Math.pow(t, i) * y[p];
+            }
+        }
+        for (int c = 0; c < size; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < size; r++) {
+                if (Math.abs(a[r][c]) > Math.abs(a[pivot][c])) pivot = r;
+            }
+            double[] row = a[c];
+            a[c] = a[pivot];
+            a[pivot] = row;
+            for (int r = c + 1; r < size; r++) {
+                double factor = a[r][c] / a[c][c];
+                for (int k = c; k <= size; k++) {
+                    a[r][k] -= factor * a[c][k];
+                }
+            }
+        }
+        double[] centered = new double[size];
+        for (int r = size - 1; r >= 0; r--) {
+            double sum = a[r][size];
+            for (int k = r + 1; k < size; k++) {
+                sum -= a[r][k] * centered[k];
+            }
+            centered[r] = sum / a[r][r];
+        }
+        // Expand the polynomial in (x - mean) into a polynomial in x
+        double[] coefficients = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            for (int k = size - 1; k > 0; k--) {
+                coefficients[k] = coefficients[k - 1] - mean * coefficients[k];
+            }
+            coefficients[0] = centered[i] - mean * coefficients[0];
+        }
+        return coefficients;
+    }
+
+    private static double evaluate(double[] coefficients, double x) {
+        double value = 0;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            value = value * x + coefficients[i];
+        }
+        return value;
+    }
+
+    private static double getR2(double[] x, double[] y, double[] coefficients) {
+        double mean = Arrays.stream(y).average().getAsDouble();
+        double ssResidual = 0;
+        double ssTotal = 0;
+        for (int i = 0; i < x.length; i++) {
+            ssResidual += Math.pow(y[i] - evaluate(coefficients, x[i]), 2);
+            ssTotal += Math.pow(y[i] - mean, 2);
+        }
+        return 1 - ssResidual / ssTotal;
+    }
+}
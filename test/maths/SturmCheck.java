@@ -0,0 +1,109 @@
+package maths;
+
+import java.util.*;
+
+/**
+ * Compares {@link Polynomial#getSignChangesLocations(double, double)} with the recursive bisection it replaced, and checks
+ * the intervals of {@link Polynomial#getRootIsolatingIntervals(double, double)} and the values of
+ * {@link Polynomial#getRoots(double, double, double)} against known roots, including repeated roots and constant
+ * polynomials.
+ */
+public class SturmCheck {
+
+    public static void main(String[] args) {
+        Random random = new Random(22);
+        int compared = 0;
+        int oldFailures = 0;
+        for (int i = 0; i < 20000; i++) {
+            int degree = random.nextInt(9);
+            Polynomial p = new Polynomial(random.nextGaussian());
+            for (int k = 0; k < degree; k++) {
+                p = p.multiply(new Polynomial(-random.nextDouble() * 100, 1));
+            }
+            if (random.nextBoolean()) {
+                p = p.add(new Polynomial(random.nextGaussian() * 1e3));
+            }
+            double x1 = random.nextDouble() * 20;
+            double x2 = x1 + random.nextDouble() * 100;
+            List<Double> expected;
+            try {
+                expected = getSignChangesLocationsRecursively(p, x1, x2, 0);
+            } catch (StackOverflowError | IllegalArgumentException e) {
+                // Roots too close to be split, which the iterative version returns as one interval
+                oldFailures++;
+                continue;
+            }
+            List<Double> actual = p.getSignChangesLocations(x1, x2);
+            if (!expected.equals(actual)) fail(p, x1, x2, actual + " instead of " + expected);
+            compared++;
+        }
+
+        // Repeated roots are counted once by the Sturm chain, and a root of multiplicity m is only found to about 1e-16^(1/m)
+        checkRoots(new Polynomial(-2, 1).multiply(new Polynomial(-2, 1)).multiply(new Polynomial(-5, 1)), 0, 10, 1e-7, 2, 5);
+        checkRoots(new Polynomial(-3, 1).multiply(new Polynomial(-3, 1)).multiply(new Polynomial(-3, 1)), 0, 10, 1e-4, 3);
+        checkRoots(new Polynomial(1, 0, 1).multiply(new Polynomial(-1, 1)).multiply(new Polynomial(-1, 1)), -10, 10, 1e-7, 1);
+        // Roots on the bounds of the half-open interval (x1, x2]
+        checkRoots(new Polynomial(-1, 1).multiply(new Polynomial(-4, 1)), 1, 4, 1e-9, 4);
+        // Degree 0 polynomials have no root
+        checkRoots(new Polynomial(3), -10, 10, 1e-9);
+        checkRoots(new Polynomial(-0.5), -10, 10, 1e-9);
+        checkRoots(new Polynomial(2, 0, 0).crop(0), -1, 1, 1e-9);
+        System.out.println(compared + " polynomials match the recursive bisection (" + oldFailures + " made it fail), edge cases pass");
+    }
+
+    private static void checkRoots(Polynomial p, double x1, double x2, double tolerance, double... roots) {
+        List<double[]> intervals = p.getRootIsolatingIntervals(x1, x2);
+        if (intervals.size() != roots.length) fail(p, x1, x2, intervals.size() + " intervals instead of " + roots.length);
+        for (int i = 0; i < roots.length; i++) {
+            double[] interval = intervals.get(i);
+            if (!(interval[0] < roots[i] && roots[i] <= interval[1])) fail(p, x1, x2, Arrays.toString(interval) + " does not hold " + roots[i]);
+        }
+        List<Double> found = p.getRoots(x1, x2, 1e-9);
+        for (int i = 0; i < roots.length; i++) {
+            if (found.size() != roots.length || Math.abs(found.get(i) - roots[i]) > tolerance) fail(p, x1, x2, "root " + found.get(i) + " instead of " + roots[i]);
+        }
+        if (p.getZerosCount(x1, x2) != roots.length) fail(p, x1, x2, p.getZerosCount(x1, x2) + " zeros instead of " + roots.length);
+    }
+
+    /**
+     * The bisection used before the iterative version, counting the roots of both halves with the Sturm chain.
+     */
+    private static List<Double> getSignChangesLocationsRecursively(Polynomial p, double x1, double x2, int depth) {
+        if (depth > 2000) throw new StackOverflowError();
+        List<Double> signChangeLocations = new ArrayList<>();
+        double center = (x1 + x2) / 2.0;
+        int totalRoots = p.getZerosCount(x1, x2);
+        int leftRoots = p.getZerosCount(x1, center);
+        int rightRoots = totalRoots - leftRoots;
+        if (totalRoots == 0) {
+            return signChangeLocations;
+        } else if (totalRoots == 1) {
+            signChangeLocations.add(x2);
+            return signChangeLocations;
+        } else if (leftRoots == 1 && rightRoots == 1) {
+            signChangeLocations.add(center);
+            signChangeLocations.add(x2);
+            return signChangeLocations;
+        } else if (leftRoots == 0) {
+            return getSignChangesLocationsRecursively(p, center, x2, depth + 1);
+        } else if (rightRoots == 0) {
+            return getSignChangesLocationsRecursively(p, x1, center, depth + 1);
+        } else if (leftRoots == 1) {
+            signChangeLocations.add(center);
+            signChangeLocations.addAll(getSignChangesLocationsRecursively(p, center, x2, depth + 1));
+            return signChangeLocations;
+        } else if (rightRoots == 1) {
+            signChangeLocations.addAll(getSignChangesLocationsRecursively(p, x1, center, depth + 1));
+            signChangeLocations.add(x2);
+            return signChangeLocations;
+        } else {
+            signChangeLocations.addAll(getSignChangesLocationsRecursively(p, x1, center, depth + 1));
+            signChangeLocations.addAll(getSignChangesLocationsRecursively(p, center, x2, depth + 1));
+            return signChangeLocations;
+        }
+    }
+
+    private static void fail(Polynomial p, double x1, double x2, String message) {
+        throw new IllegalStateException(message + " for " + p + " over (" + x1 + ", " + x2 + "]");
+    }
+}